@@ -0,0 +1,80 @@
+package com.coupon.backend.mapper;
+
+import com.coupon.backend.dto.CouponRequestDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a model reply into a coupon: the previous path (a map through
+ * {@link ObjectMapper}, then {@link ExtractResultMapper}) against
+ * {@link ExtractResultDecoder}. The clean reply follows the instructions to the letter;
+ * the noisy one has what models actually send now and then, such as numbers and
+ * booleans as strings, impossible dates, unknown enum values, a list of terms and
+ * fields nobody asked for, which the previous path mostly handles by catching
+ * exceptions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExtractResultDecoderBenchmark {
+
+    private static final String CLEAN = """
+            {"title": "Flat ₹125 off on Swiggy", "description": "Get flat ₹125 off on orders above ₹499",
+            "code": "SWIGGYIT", "platform": "Swiggy", "category": "Food", "discountType": "FLAT",
+            "discountValue": 125, "minOrderValue": 499, "maxDiscountValue": null,
+            "validFrom": "2026-03-01", "validTill": "2026-12-31",
+            "terms": "Valid once per user. Cannot be clubbed with other offers.",
+            "requiresUniqueUser": true, "usageType": "SINGLE_USE", "geoRestriction": null,
+            "isActive": true, "totalQuantity": 1, "soldQuantity": 0, "price": null, "isFree": true,
+            "createdAt": null, "updatedAt": null}
+            """;
+
+    private static final String NOISY = """
+            {"title": "  20% off up to Rs.150  ", "description": "Zomato weekend offer", "code": "ZOMWKND20",
+            "platform": "Zomato", "category": "Food", "discountType": "Percent",
+            "discountValue": "20", "minOrderValue": "₹1,299", "maxDiscountValue": "Rs. 150",
+            "validFrom": "", "validTill": "2026-02-30",
+            "terms": ["Valid on select restaurants", "Once per user", "Not valid on alcohol"],
+            "requiresUniqueUser": "true", "usageType": "single-use", "geoRestriction": "India only",
+            "isActive": "yes", "totalQuantity": "1", "soldQuantity": "0", "price": "free", "isFree": "true",
+            "createdAt": "2026-03-01T10:00:00Z", "updatedAt": "unknown", "confidence": 0.82,
+            "notes": {"source": "sms", "language": "en"}}
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExtractResultMapper mapper = new ExtractResultMapper();
+    private final ExtractResultDecoder decoder = new ExtractResultDecoder();
+
+    @Param({"clean", "noisy"})
+    public String payload;
+
+    private String json;
+
+    @Setup
+    public void setUp() {
+        json = payload.equals("clean") ? CLEAN : NOISY;
+    }
+
+    @Benchmark
+    public CouponRequestDto mapThenConvert() throws IOException {
+        Map<String, Object> map = objectMapper.readValue(json, new TypeReference<>() {});
+        return mapper.toExtractedDto(map);
+    }
+
+    @Benchmark
+    public CouponRequestDto decodeDirect() throws IOException {
+        return decoder.decode(json);
+    }
+}
@@ -0,0 +1,118 @@
+package com.coupon.backend.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-10 best coupons for an order value over a synthetic catalog: the columnar
+ * {@link CouponSavingsTable} against a straightforward BigDecimal scan of the same
+ * offers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CouponSavingsTableBenchmark {
+
+    private static final String[] PLATFORMS = {
+            "amazon", "flipkart", "myntra", "zomato", "swiggy", "ajio",
+            "nykaa", "bigbasket", "blinkit", "zepto", "makemytrip", "bookmyshow"
+    };
+    private static final int TOP_K = 10;
+
+    /** Offer with BigDecimal terms, the way the entity holds them. */
+    private record DecimalOffer(UUID couponId, String platform, boolean percentage, BigDecimal value,
+                                BigDecimal minOrder, BigDecimal cap) {
+    }
+
+    @Param({"1000000"})
+    private int coupons;
+
+    private CouponSavingsTable table;
+    private List<DecimalOffer> decimalOffers;
+    private long orderPaise;
+    private BigDecimal orderValue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<CouponSavingsTable.Offer> offers = new ArrayList<>(coupons);
+        decimalOffers = new ArrayList<>(coupons);
+        for (int i = 0; i < coupons; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            String platform = PLATFORMS[random.nextInt(PLATFORMS.length)];
+            long minOrder = random.nextInt(4) == 0 ? 0 : random.nextInt(2000) * 100L;
+            boolean percentage = random.nextBoolean();
+            long cap = random.nextInt(3) == 0 ? Long.MAX_VALUE : (50 + random.nextInt(450)) * 100L;
+            if (percentage) {
+                int basisPoints = (5 + random.nextInt(46)) * 100;
+                offers.add(new CouponSavingsTable.Offer(id, platform, minOrder, 0, basisPoints, cap));
+                decimalOffers.add(new DecimalOffer(id, platform, true, BigDecimal.valueOf(basisPoints, 2),
+                        BigDecimal.valueOf(minOrder, 2), cap == Long.MAX_VALUE ? null : BigDecimal.valueOf(cap, 2)));
+            } else {
+                long flat = (10 + random.nextInt(490)) * 100L;
+                offers.add(new CouponSavingsTable.Offer(id, platform, minOrder, flat, 0, cap));
+                decimalOffers.add(new DecimalOffer(id, platform, false, BigDecimal.valueOf(flat, 2),
+                        BigDecimal.valueOf(minOrder, 2), cap == Long.MAX_VALUE ? null : BigDecimal.valueOf(cap, 2)));
+            }
+        }
+        table = CouponSavingsTable.build(offers);
+        orderPaise = 1_499_00;
+        orderValue = BigDecimal.valueOf(orderPaise, 2);
+    }
+
+    @Benchmark
+    public List<CouponSavingsTable.Saving> columnarAllPlatforms() {
+        return table.top(orderPaise, null, TOP_K);
+    }
+
+    @Benchmark
+    public List<CouponSavingsTable.Saving> columnarOnePlatform() {
+        return table.top(orderPaise, "zomato", TOP_K);
+    }
+
+    @Benchmark
+    public List<UUID> bigDecimalScanAllPlatforms() {
+        return decimalScan(null);
+    }
+
+    @Benchmark
+    public List<UUID> bigDecimalScanOnePlatform() {
+        return decimalScan("zomato");
+    }
+
+    private List<UUID> decimalScan(String platform) {
+        PriorityQueue<Object[]> top = new PriorityQueue<>(Comparator.comparing(entry -> (BigDecimal) entry[0]));
+        BigDecimal hundred = BigDecimal.valueOf(100);
+        for (DecimalOffer offer : decimalOffers) {
+            if (platform != null && !platform.equals(offer.platform())) continue;
+            if (offer.minOrder().compareTo(orderValue) > 0) continue;
+            BigDecimal saving = offer.percentage()
+                    ? orderValue.multiply(offer.value()).divide(hundred, 2, RoundingMode.HALF_UP)
+                    : offer.value();
+            if (offer.cap() != null) saving = saving.min(offer.cap());
+            saving = saving.min(orderValue);
+            top.add(new Object[]{saving, offer.couponId()});
+            if (top.size() > TOP_K) top.poll();
+        }
+        List<UUID> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) ids.add(0, (UUID) top.poll()[1]);
+        return ids;
+    }
+}
@@ -0,0 +1,47 @@
+package com.coupon.backend.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the fast-path rules on typical pasted texts: a templated SMS they accept
+ * and a longer email they hand to the model. Either way this is what a text pays
+ * before a model call that takes around a second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CouponTextRulesBenchmark {
+
+    private static final String SMS = """
+            Swiggy: Get FLAT Rs.125 off on orders above Rs.499!
+            Use code SWIGGYIT. Valid till 31/12/2026. T&C apply.
+            """;
+
+    private static final String EMAIL = """
+            Hi there! Your weekend treat is here 🎉
+
+            Enjoy 20% off up to ₹150 on your next Zomato order with coupon code ZOMWKND20.
+            Minimum order value ₹299. Offer valid only for select restaurants and can be used
+            once per user. Cannot be clubbed with other offers. Not valid on alcohol, packaging
+            or delivery charges. Zomato reserves the right to modify or withdraw the offer at
+            any time without prior notice. Expires on March 1, 2026.
+
+            Unsubscribe | Manage preferences | Privacy policy
+            """;
+
+    @Param({"sms", "email"})
+    public String text;
+
+    @Benchmark
+    public CouponTextRules.Extraction extract() {
+        return CouponTextRules.extract(text.equals("sms") ? SMS : EMAIL);
+    }
+}
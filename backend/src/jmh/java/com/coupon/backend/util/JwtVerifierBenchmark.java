@@ -0,0 +1,88 @@
+package com.coupon.backend.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token: the previous path (signing key
+ * rebuilt on every call and the token parsed twice, once for the email and once more
+ * to validate), a single parse with a parser built once, and {@link JwtVerifier} with
+ * its verified-token cache, which clients re-sending the same few tokens mostly hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class JwtVerifierBenchmark {
+
+    private static final String SECRET = "your-secret-key-should-be-at-least-256-bits-long-for-hs256-algorithm-security";
+    private static final int ACTIVE_TOKENS = 1_000;
+
+    private final String[] tokens = new String[ACTIVE_TOKENS];
+    private JwtParser parser;
+    private JwtVerifier verifier;
+
+    @Setup
+    public void setUp() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        for (int i = 0; i < ACTIVE_TOKENS; i++) {
+            tokens[i] = Jwts.builder()
+                    .setSubject("user" + i + "@example.com")
+                    .claim(JwtUtil.USER_ID_CLAIM, UUID.randomUUID().toString())
+                    .claim(JwtUtil.EPOCH_CLAIM, 0)
+                    .setIssuedAt(new Date())
+                    .setExpiration(new Date(System.currentTimeMillis() + 86_400_000L))
+                    .signWith(key)
+                    .compact();
+        }
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        verifier = new JwtVerifier(key, 10_000);
+    }
+
+    @Benchmark
+    public boolean previousPath() {
+        String token = nextToken();
+        String email = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return claims.getSubject().equals(email) && claims.getExpiration().after(new Date());
+    }
+
+    @Benchmark
+    public Claims singleParse() {
+        return parser.parseClaimsJws(nextToken()).getBody();
+    }
+
+    @Benchmark
+    public JwtVerifier.VerifiedToken cachedVerifier() {
+        return verifier.verify(nextToken());
+    }
+
+    private String nextToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(ACTIVE_TOKENS)];
+    }
+}
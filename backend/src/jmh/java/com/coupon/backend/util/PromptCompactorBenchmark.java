@@ -0,0 +1,57 @@
+package com.coupon.backend.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of compacting a pasted marketing email, as is and repeated until it is over the
+ * character budget so lines have to be ranked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PromptCompactorBenchmark {
+
+    private static final String EMAIL = """
+            🎉🎉 MEGA WEEKEND SALE 🎉🎉   View in browser
+            Hi there! Your weekend treat is here 🍕👨‍👩‍👧
+
+            Enjoy 20% off up to ₹150 on your next Zomato order with coupon code ZOMWKND20.
+            Enjoy 20% off up to ₹150 on your next Zomato order with coupon code ZOMWKND20.
+            Order now: https://www.zomato.com/offers/weekend?utm_source=email&utm_campaign=wk20&fbclid=abc123
+            Minimum order value ₹299. Offer valid only for select restaurants and can be used
+            once per user. Cannot be clubbed with other offers. Expires on March 1, 2026. ✅
+            Track your order: https://click.mailer.zomato.com/ls/click?upn=abcdefghijklmnopqrstuvwxyz0123456789
+            Download the app | Follow us
+            Unsubscribe | Manage preferences | Privacy policy
+            © 2026 Zomato Ltd. All rights reserved.
+            """;
+
+    @Param({"email", "long"})
+    public String text;
+
+    private String input;
+
+    @Setup
+    public void setUp() {
+        StringBuilder repeated = new StringBuilder();
+        for (int i = 0; repeated.length() < 12_000; i++) {
+            // Numbered so the copies are not dropped as repeats
+            repeated.append(EMAIL.replace("Offer valid", "Offer " + i + " valid"));
+        }
+        input = text.equals("email") ? EMAIL : repeated.toString();
+    }
+
+    @Benchmark
+    public PromptCompactor.Compacted compact() {
+        return PromptCompactor.compact(input, 4000);
+    }
+}
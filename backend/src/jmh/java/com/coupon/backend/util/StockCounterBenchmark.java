@@ -0,0 +1,114 @@
+package com.coupon.backend.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reserve-then-release throughput on a single hot coupon shared by every benchmark
+ * thread: the lock-free {@link StockCounter} against the same bounded counter behind a
+ * monitor and behind a {@link ReentrantLock}. Stock is kept low so the sold-out path
+ * is part of the mix.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class StockCounterBenchmark {
+
+    private static final int STOCK = 4;
+
+    private StockCounter lockFree;
+    private SynchronizedCounter synchronizedCounter;
+    private LockedCounter lockedCounter;
+
+    @Setup
+    public void setUp() {
+        lockFree = new StockCounter(STOCK);
+        synchronizedCounter = new SynchronizedCounter(STOCK);
+        lockedCounter = new LockedCounter(STOCK);
+    }
+
+    @Benchmark
+    public void lockFree(Blackhole blackhole) {
+        boolean acquired = lockFree.tryAcquire();
+        blackhole.consume(acquired);
+        if (acquired) {
+            lockFree.release();
+        }
+    }
+
+    @Benchmark
+    public void synchronizedCounter(Blackhole blackhole) {
+        boolean acquired = synchronizedCounter.tryAcquire();
+        blackhole.consume(acquired);
+        if (acquired) {
+            synchronizedCounter.release();
+        }
+    }
+
+    @Benchmark
+    public void reentrantLock(Blackhole blackhole) {
+        boolean acquired = lockedCounter.tryAcquire();
+        blackhole.consume(acquired);
+        if (acquired) {
+            lockedCounter.release();
+        }
+    }
+
+    private static final class SynchronizedCounter {
+        private int available;
+
+        SynchronizedCounter(int available) {
+            this.available = available;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (available <= 0) return false;
+            available--;
+            return true;
+        }
+
+        synchronized void release() {
+            available++;
+        }
+    }
+
+    private static final class LockedCounter {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int available;
+
+        LockedCounter(int available) {
+            this.available = available;
+        }
+
+        boolean tryAcquire() {
+            lock.lock();
+            try {
+                if (available <= 0) return false;
+                available--;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release() {
+            lock.lock();
+            try {
+                available++;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
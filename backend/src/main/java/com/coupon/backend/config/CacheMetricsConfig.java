@@ -0,0 +1,65 @@
+package com.coupon.backend.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Per-region second-level and query cache meters. Hibernate's own meters only report
+ * totals; these break hits, misses, puts and resident entries down by the regions
+ * configured in ehcache.xml so each region can be sized on its own.
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    private static final List<String> CACHE_REGIONS = List.of(
+            "coupon",
+            "coupon-browse",
+            "userdetail",
+            "userdetail-by-email",
+            "default-query-results-region"
+    );
+
+    @Bean
+    public MeterBinder hibernateCacheRegionMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : CACHE_REGIONS) {
+                counter(registry, statistics, region, "hit", CacheRegionStatistics::getHitCount);
+                counter(registry, statistics, region, "miss", CacheRegionStatistics::getMissCount);
+                FunctionCounter.builder("coupon.cache.region.puts", statistics,
+                                s -> value(s, region, CacheRegionStatistics::getPutCount))
+                        .tag("region", region)
+                        .register(registry);
+                Gauge.builder("coupon.cache.region.entries", statistics,
+                                s -> value(s, region, CacheRegionStatistics::getElementCountInMemory))
+                        .tag("region", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static void counter(MeterRegistry registry, Statistics statistics,
+                                String region, String result, ToDoubleFunction<CacheRegionStatistics> count) {
+        FunctionCounter.builder("coupon.cache.region.requests", statistics, s -> value(s, region, count))
+                .tag("region", region)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static double value(Statistics statistics, String region, ToDoubleFunction<CacheRegionStatistics> metric) {
+        // Query regions are created on first use; report zero until then
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        return regionStatistics != null ? metric.applyAsDouble(regionStatistics) : 0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.coupon.backend.config;
+
+import com.coupon.backend.service.ExtractionModel;
+import com.coupon.backend.service.GeminiExtractionModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The Gemini providers: the main model and a lighter one, usually the hedge target.
+ * The offline "fake" provider is a component of its own.
+ */
+@Configuration
+public class ExtractionModelConfig {
+
+    @Bean("gemini")
+    public ExtractionModel gemini(@Value("${gemini.api_key}") String apiKey,
+                                  @Value("${extraction.gemini.model:gemini-3-flash-preview}") String model) {
+        return new GeminiExtractionModel(apiKey, model);
+    }
+
+    @Bean("gemini-lite")
+    public ExtractionModel geminiLite(@Value("${gemini.api_key}") String apiKey,
+                                      @Value("${extraction.gemini.lite-model:gemini-2.5-flash-lite}") String model) {
+        return new GeminiExtractionModel(apiKey, model);
+    }
+}
@@ -1,7 +1,9 @@
 package com.coupon.backend.config;
 
 import com.coupon.backend.filter.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -30,9 +32,13 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource))
                 .authorizeHttpRequests(auth -> {
+                    // Async results (deferred responses, server-sent events) were authorized on the original request
+                    auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
                     auth.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll();
                     auth.requestMatchers("/api/auth/**", "/auth/**").permitAll();
-                    auth.requestMatchers(HttpMethod.GET, "/api/coupons/browse", "/coupons/browse").permitAll();
+                    auth.requestMatchers(HttpMethod.GET, "/api/coupons/browse", "/coupons/browse",
+                            "/api/coupons/search", "/coupons/search",
+                            "/api/coupons/best", "/coupons/best").permitAll();
                     auth.requestMatchers(HttpMethod.GET, "/api/health", "/health").permitAll();
                     auth.anyRequest().authenticated();
                 })
@@ -45,7 +51,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.cost:10}") int cost) {
+        return new BCryptPasswordEncoder(cost);
     }
 }
@@ -3,6 +3,7 @@ package com.coupon.backend.controller;
 import com.coupon.backend.dto.SingInRequestDto;
 import com.coupon.backend.dto.UserDetailsRequestDto;
 import com.coupon.backend.dto.UserDetailsResponseDto;
+import com.coupon.backend.exception.ServiceOverloadedException;
 import com.coupon.backend.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +27,9 @@ public class AuthController {
         try {
             UserDetailsResponseDto response = authService.register(requestDto);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (ServiceOverloadedException e) {
+            // Answered with 503 and Retry-After by GlobalExceptionHandler
+            throw e;
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", e.getMessage());
@@ -38,11 +42,25 @@ public class AuthController {
         try {
             UserDetailsResponseDto response = authService.signin(requestDto);
             return ResponseEntity.ok(response);
+        } catch (ServiceOverloadedException e) {
+            // Answered with 503 and Retry-After by GlobalExceptionHandler
+            throw e;
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", e.getMessage() != null ? e.getMessage() : "Invalid email or password");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
         }
     }
-}
 
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        try {
+            authService.logout(authHeader);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+    }
+}
@@ -1,17 +1,35 @@
 package com.coupon.backend.controller;
 
+import com.coupon.backend.dto.BestCouponsResponseDto;
+import com.coupon.backend.dto.CouponBrowseFilter;
+import com.coupon.backend.dto.CouponCodeDto;
+import com.coupon.backend.dto.CouponPageResponseDto;
 import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.dto.CouponReservationDto;
 import com.coupon.backend.dto.CouponResponseDto;
+import com.coupon.backend.dto.CouponSearchResponseDto;
+import com.coupon.backend.enums.DiscountType;
 import com.coupon.backend.service.CouponBrowseService;
+import com.coupon.backend.service.CouponBrowseSnapshot;
 import com.coupon.backend.service.CouponListingService;
-import com.coupon.backend.service.RewardPointsService;
+import com.coupon.backend.service.CouponReservationService;
+import com.coupon.backend.service.CouponSavingsService;
+import com.coupon.backend.service.CouponSearchService;
+import com.coupon.backend.util.BrowseCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +47,16 @@ public class CouponController {
     private CouponBrowseService couponBrowseService;
 
     @Autowired
-    private RewardPointsService rewardPointsService;
+    private CouponSearchService couponSearchService;
+
+    @Autowired
+    private CouponSavingsService couponSavingsService;
+
+    @Autowired
+    private CouponReservationService couponReservationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<?> listCoupon(@Valid @RequestBody CouponRequestDto request, Authentication authentication) {
@@ -45,15 +72,96 @@ public class CouponController {
 
     @GetMapping("/browse")
     public ResponseEntity<?> browseCoupons(
-            @RequestParam(required = false, defaultValue = "true") boolean activeOnly) {
+            @RequestParam(required = false, defaultValue = "true") boolean activeOnly,
+            @RequestParam(required = false) String platform,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String discountType,
+            @RequestParam(required = false, defaultValue = "false") boolean freeOnly,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate validOn,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false, defaultValue = "full") String view,
+            @RequestParam(required = false) List<String> fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            CouponBrowseFilter filter = browseFilter(activeOnly, platform, category, discountType, freeOnly, validOn);
+            CouponPageResponseDto<?> page;
+            if (fields != null && !fields.isEmpty()) {
+                page = couponBrowseService.browseFields(filter, cursor, limit, fields);
+            } else if ("card".equalsIgnoreCase(view)) {
+                CouponBrowseSnapshot.EncodedPage encoded = couponBrowseService.browseCardsEncoded(filter, cursor, limit);
+                if (encoded != null) {
+                    return encodedPage(encoded, acceptEncoding, ifNoneMatch);
+                }
+                page = couponBrowseService.browseCards(filter, cursor, limit);
+            } else if ("full".equalsIgnoreCase(view)) {
+                page = couponBrowseService.browse(filter, cursor, limit);
+            } else {
+                throw new RuntimeException("Invalid view: " + view);
+            }
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage() != null ? e.getMessage() : "Failed to load coupons");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    /**
+     * Streaming variant of browse, selected with Accept: application/x-ndjson. Emits every
+     * matching coupon as one JSON object per line instead of a page.
+     */
+    @GetMapping(value = "/browse", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCoupons(
+            @RequestParam(required = false, defaultValue = "true") boolean activeOnly,
+            @RequestParam(required = false) String platform,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String discountType,
+            @RequestParam(required = false, defaultValue = "false") boolean freeOnly,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate validOn,
+            @RequestParam(required = false) String cursor) {
+        CouponBrowseFilter filter;
         try {
-            List<CouponResponseDto> coupons = activeOnly
-                    ? couponBrowseService.browseActive()
-                    : couponBrowseService.browseAll();
-            return ResponseEntity.ok(coupons);
+            filter = browseFilter(activeOnly, platform, category, discountType, freeOnly, validOn);
+            BrowseCursor.decode(cursor);
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", e.getMessage() != null ? e.getMessage() : "Failed to load coupons");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> objectMapper.writeValue(out, error));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> couponBrowseService.streamTo(filter, cursor, out));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchCoupons(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            CouponSearchResponseDto result = couponSearchService.search(query, limit);
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage() != null ? e.getMessage() : "Search failed");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @GetMapping("/best")
+    public ResponseEntity<?> bestCoupons(
+            @RequestParam BigDecimal orderValue,
+            @RequestParam(required = false) String platform,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            BestCouponsResponseDto result = couponSavingsService.best(orderValue, platform, limit);
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage() != null ? e.getMessage() : "Failed to find best coupons");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         }
     }
@@ -73,14 +181,76 @@ public class CouponController {
     @PostMapping("/{id}/view-code")
     public ResponseEntity<?> viewCouponCode(@PathVariable UUID id, Authentication authentication) {
         try {
-            rewardPointsService.deductPointsByEmail(authentication.getName(), 5);
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "5 points deducted successfully");
-            return ResponseEntity.ok(response);
+            CouponCodeDto code = couponReservationService.reveal(id, authentication.getName());
+            return ResponseEntity.ok(code);
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
-            error.put("message", e.getMessage() != null ? e.getMessage() : "Failed to deduct points");
+            error.put("message", e.getMessage() != null ? e.getMessage() : "Failed to reveal code");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         }
     }
+
+    @PostMapping("/{id}/reservations")
+    public ResponseEntity<?> reserveCoupon(@PathVariable UUID id, Authentication authentication) {
+        try {
+            CouponReservationDto reservation = couponReservationService.reserve(id, authentication.getName());
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage() != null ? e.getMessage() : "Failed to reserve coupon");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @PostMapping("/reservations/{reservationId}/confirm")
+    public ResponseEntity<?> confirmReservation(@PathVariable UUID reservationId, Authentication authentication) {
+        try {
+            CouponCodeDto code = couponReservationService.confirm(reservationId, authentication.getName());
+            return ResponseEntity.ok(code);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage() != null ? e.getMessage() : "Failed to confirm reservation");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<?> releaseReservation(@PathVariable UUID reservationId, Authentication authentication) {
+        try {
+            CouponReservationDto reservation = couponReservationService.release(reservationId, authentication.getName());
+            return ResponseEntity.ok(reservation);
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage() != null ? e.getMessage() : "Failed to release reservation");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    /**
+     * Sends a snapshot page as stored: gzip bytes when the client accepts them, the
+     * identity bytes otherwise, and 304 when the client already holds this version.
+     */
+    private static ResponseEntity<byte[]> encodedPage(CouponBrowseSnapshot.EncodedPage page,
+                                                      String acceptEncoding, String ifNoneMatch) {
+        if (ifNoneMatch != null && ifNoneMatch.contains(page.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(page.etag()).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(page.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(page.gzip());
+        }
+        return response.body(page.identity());
+    }
+
+    private static CouponBrowseFilter browseFilter(boolean activeOnly, String platform, String category,
+                                                   String discountType, boolean freeOnly, LocalDate validOn) {
+        DiscountType type = DiscountType.fromString(discountType);
+        if (discountType != null && !discountType.isBlank() && type == null) {
+            throw new RuntimeException("Invalid discountType: " + discountType);
+        }
+        return new CouponBrowseFilter(activeOnly, platform, category, type, freeOnly, validOn);
+    }
 }
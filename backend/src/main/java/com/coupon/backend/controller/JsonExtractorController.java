@@ -1,17 +1,29 @@
 package com.coupon.backend.controller;
 
-import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.dto.BatchExtractRequestDto;
+import com.coupon.backend.dto.BatchExtractResponseDto;
 import com.coupon.backend.dto.ExtractRequestDto;
 import com.coupon.backend.dto.ExtractResponseDto;
-import com.coupon.backend.service.JsonExtractorService;
+import com.coupon.backend.dto.ExtractionJobDto;
+import com.coupon.backend.exception.ServiceOverloadedException;
+import com.coupon.backend.service.ExtractionJobService;
+import com.coupon.backend.service.ExtractionMicroBatcher;
+import com.coupon.backend.service.ExtractionStreamService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/extract")
@@ -19,17 +31,84 @@ import java.util.Map;
 public class JsonExtractorController {
 
     @Autowired
-    private JsonExtractorService jsonExtractorService;
+    private ExtractionJobService extractionJobService;
 
+    @Autowired
+    private ExtractionMicroBatcher extractionMicroBatcher;
+
+    @Autowired
+    private ExtractionStreamService extractionStreamService;
+
+    /**
+     * Extracts and answers in one request. Runs as a job too, so the request thread is
+     * released while the model works.
+     */
     @PostMapping
-    public ResponseEntity<?> extract(@Valid @RequestBody ExtractRequestDto request) {
+    public CompletableFuture<ResponseEntity<?>> extract(@Valid @RequestBody ExtractRequestDto request,
+                                                        Authentication authentication) {
+        try {
+            return extractionJobService.submitAndAwait(request.prompt(), authentication.getName())
+                    .<ResponseEntity<?>>thenApply(result -> ResponseEntity.ok(new ExtractResponseDto(result)))
+                    .exceptionally(e -> error(e instanceof CompletionException ? e.getCause() : e));
+        } catch (ServiceOverloadedException e) {
+            // Answered with 503 and Retry-After by GlobalExceptionHandler
+            throw e;
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(error(e));
+        }
+    }
+
+    /**
+     * Extracts several texts in as few model calls as possible; outcomes are per text
+     * and in request order.
+     */
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<?>> extractBatch(@Valid @RequestBody BatchExtractRequestDto request) {
+        return extractionMicroBatcher.extractAll(request.prompts())
+                .<ResponseEntity<?>>thenApply(results -> ResponseEntity.ok(new BatchExtractResponseDto(results)))
+                .exceptionally(e -> error(e instanceof CompletionException ? e.getCause() : e));
+    }
+
+    /**
+     * Extracts over SSE: "field" events as the model completes each field, then a
+     * "result" or "error" event.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter extractStream(@Valid @RequestBody ExtractRequestDto request) {
+        return extractionStreamService.stream(request.prompt());
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@Valid @RequestBody ExtractRequestDto request, Authentication authentication) {
         try {
-            CouponRequestDto result = jsonExtractorService.extractFromPrompt(request.prompt());
-            return ResponseEntity.ok(new ExtractResponseDto(result));
+            ExtractionJobDto job = extractionJobService.submit(request.prompt(), authentication.getName());
+            return ResponseEntity.accepted().location(URI.create("/api/extract/jobs/" + job.id())).body(job);
+        } catch (ServiceOverloadedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return error(e);
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable UUID jobId, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(extractionJobService.getJob(jobId, authentication.getName()));
         } catch (RuntimeException e) {
             Map<String, String> error = new HashMap<>();
-            error.put("message", e.getMessage() != null ? e.getMessage() : "Extraction failed");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
     }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJob(@PathVariable UUID jobId, Authentication authentication) {
+        return extractionJobService.subscribe(jobId, authentication.getName());
+    }
+
+    private static ResponseEntity<?> error(Throwable e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", e.getMessage() != null ? e.getMessage() : "Extraction failed");
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
 }
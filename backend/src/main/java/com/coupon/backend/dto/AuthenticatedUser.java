@@ -0,0 +1,16 @@
+package com.coupon.backend.dto;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * Principal of a request authenticated by JWT, built from the token's claims alone.
+ * getName() is the email, so Authentication.getName() keeps returning it.
+ */
+public record AuthenticatedUser(UUID id, String email) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,7 @@
+package com.coupon.backend.dto;
+
+/**
+ * Outcome for one text of a batch: the result, or why it could not be extracted.
+ */
+public record BatchExtractItemDto(int index, CouponRequestDto result, String error) {
+}
@@ -0,0 +1,14 @@
+package com.coupon.backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchExtractRequestDto(
+        @NotEmpty(message = "At least one prompt is required")
+        @Size(max = 100, message = "At most 100 prompts per batch")
+        List<@NotBlank(message = "Prompts must not be blank") String> prompts
+) {
+}
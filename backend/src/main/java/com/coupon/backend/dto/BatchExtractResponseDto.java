@@ -0,0 +1,6 @@
+package com.coupon.backend.dto;
+
+import java.util.List;
+
+public record BatchExtractResponseDto(List<BatchExtractItemDto> results) {
+}
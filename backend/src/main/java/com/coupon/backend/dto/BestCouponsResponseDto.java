@@ -0,0 +1,11 @@
+package com.coupon.backend.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record BestCouponsResponseDto(
+        BigDecimal orderValue,
+        String platform,
+        List<CouponSavingDto> items
+) {
+}
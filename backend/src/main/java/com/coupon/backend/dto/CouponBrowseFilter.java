@@ -0,0 +1,19 @@
+package com.coupon.backend.dto;
+
+import com.coupon.backend.enums.DiscountType;
+
+import java.time.LocalDate;
+
+/**
+ * Browse predicates. Null fields are not applied; platform and category are
+ * expected in the normalized (trimmed, lower-case) form stored on the entity.
+ */
+public record CouponBrowseFilter(
+        boolean activeOnly,
+        String platform,
+        String category,
+        DiscountType discountType,
+        boolean freeOnly,
+        LocalDate validOn
+) {
+}
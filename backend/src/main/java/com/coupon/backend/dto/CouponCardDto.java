@@ -0,0 +1,28 @@
+package com.coupon.backend.dto;
+
+import com.coupon.backend.enums.DiscountType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Browse grid row. Projected straight from the coupon table, so the long text
+ * columns and the code are never read for the listing.
+ */
+public record CouponCardDto(
+        UUID id,
+        String title,
+        String platform,
+        String category,
+        DiscountType discountType,
+        BigDecimal discountValue,
+        LocalDate validTill,
+        Boolean isActive,
+        Integer soldQuantity,
+        BigDecimal price,
+        Boolean isFree,
+        Instant createdAt
+) {
+}
@@ -0,0 +1,11 @@
+package com.coupon.backend.dto;
+
+import java.util.UUID;
+
+public record CouponCodeDto(
+        UUID couponId,
+        String code,
+        int pointsDeducted,
+        Integer remainingPoints
+) {
+}
@@ -0,0 +1,9 @@
+package com.coupon.backend.dto;
+
+import java.util.Map;
+
+public record CouponFacetsDto(
+        Map<String, Long> platforms,
+        Map<String, Long> categories
+) {
+}
@@ -0,0 +1,11 @@
+package com.coupon.backend.dto;
+
+import java.util.List;
+
+public record CouponPageResponseDto<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasMore,
+        CouponFacetsDto facets
+) {
+}
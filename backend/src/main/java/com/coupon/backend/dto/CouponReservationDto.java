@@ -0,0 +1,12 @@
+package com.coupon.backend.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record CouponReservationDto(
+        UUID id,
+        UUID couponId,
+        String status,
+        Instant expiresAt
+) {
+}
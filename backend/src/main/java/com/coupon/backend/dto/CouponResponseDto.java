@@ -11,7 +11,6 @@ public record CouponResponseDto(
         UUID id,
         String title,
         String description,
-        String code,
         String platform,
         String category,
         DiscountType discountType,
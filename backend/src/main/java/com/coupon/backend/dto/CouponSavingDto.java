@@ -0,0 +1,10 @@
+package com.coupon.backend.dto;
+
+import java.math.BigDecimal;
+
+public record CouponSavingDto(
+        CouponCardDto coupon,
+        BigDecimal saving,
+        BigDecimal payable
+) {
+}
@@ -0,0 +1,9 @@
+package com.coupon.backend.dto;
+
+import java.util.List;
+
+public record CouponSearchResponseDto(
+        String query,
+        List<CouponResponseDto> items
+) {
+}
@@ -0,0 +1,8 @@
+package com.coupon.backend.dto;
+
+/**
+ * One coupon field as soon as streaming extraction completes it, with the value as the
+ * model wrote it.
+ */
+public record ExtractedFieldDto(String name, Object value) {
+}
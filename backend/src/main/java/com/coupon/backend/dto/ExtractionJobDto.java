@@ -0,0 +1,16 @@
+package com.coupon.backend.dto;
+
+import com.coupon.backend.enums.ExtractionJobStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record ExtractionJobDto(
+        UUID id,
+        ExtractionJobStatus status,
+        CouponRequestDto result,
+        String error,
+        Instant createdAt,
+        Instant completedAt
+) {
+}
@@ -2,6 +2,8 @@ package com.coupon.backend.entity;
 
 import com.coupon.backend.enums.DiscountType;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -9,7 +11,18 @@ import java.time.LocalDate;
 import java.util.*;
 
 @Entity
-@Table(name = "coupon")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "coupon")
+@Table(name = "coupon", indexes = {
+        @Index(name = "idx_coupon_active_created_id", columnList = "is_active, created_at, id"),
+        @Index(name = "idx_coupon_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_coupon_active_platform_created_id", columnList = "is_active, platform, created_at, id"),
+        @Index(name = "idx_coupon_active_category_created_id", columnList = "is_active, category, created_at, id"),
+        @Index(name = "idx_coupon_active_facets", columnList = "is_active, platform, category"),
+        @Index(name = "idx_coupon_pending_valid_from", columnList = "pending_activation, valid_from"),
+        @Index(name = "idx_coupon_active_valid_till", columnList = "is_active, valid_till"),
+        @Index(name = "idx_coupon_listing_reward_pending", columnList = "listing_reward_pending")
+})
 public class Coupon {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -48,6 +61,8 @@ public class Coupon {
 
     private Boolean isActive = true;
 
+    // Listed as active but validFrom is still ahead; flipped to active on that day
+    private Boolean pendingActivation = false;
 
     private Integer totalQuantity = 1;   
     private Integer soldQuantity = 0;
@@ -55,6 +70,13 @@ public class Coupon {
     private BigDecimal price;          
     private Boolean isFree = true;
 
+    private UUID listedBy;
+
+    // Listing reward not yet credited to listedBy; cleared by the credit writer, never
+    // by entity updates, so a stale cached copy cannot bring it back
+    @Column(updatable = false)
+    private Integer listingRewardPending;
+
     private Instant createdAt;
     private Instant updatedAt;
 
@@ -194,6 +216,14 @@ public class Coupon {
         isActive = active;
     }
 
+    public Boolean getPendingActivation() {
+        return pendingActivation;
+    }
+
+    public void setPendingActivation(Boolean pendingActivation) {
+        this.pendingActivation = pendingActivation;
+    }
+
     public Integer getTotalQuantity() {
         return totalQuantity;
     }
@@ -226,6 +256,22 @@ public class Coupon {
         isFree = free;
     }
 
+    public UUID getListedBy() {
+        return listedBy;
+    }
+
+    public void setListedBy(UUID listedBy) {
+        this.listedBy = listedBy;
+    }
+
+    public Integer getListingRewardPending() {
+        return listingRewardPending;
+    }
+
+    public void setListingRewardPending(Integer listingRewardPending) {
+        this.listingRewardPending = listingRewardPending;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,57 @@
+package com.coupon.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A user's purchase of a coupon's code. There is at most one per user and coupon, so
+ * revealing a code the user already bought costs nothing and sells no further unit.
+ * Rows are written by the redemption statement in CouponRepositoryCustomImpl.
+ */
+@Entity
+@Table(name = "coupon_redemption", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_coupon_redemption_user_coupon", columnNames = {"user_id", "coupon_id"})
+})
+public class CouponRedemption {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "coupon_id", nullable = false)
+    private UUID couponId;
+
+    @Column(nullable = false)
+    private Integer points;
+
+    @Column(nullable = false)
+    private Instant redeemedAt;
+
+    protected CouponRedemption() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public UUID getCouponId() {
+        return couponId;
+    }
+
+    public Integer getPoints() {
+        return points;
+    }
+
+    public Instant getRedeemedAt() {
+        return redeemedAt;
+    }
+}
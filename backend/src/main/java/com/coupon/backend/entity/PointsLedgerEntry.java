@@ -0,0 +1,74 @@
+package com.coupon.backend.entity;
+
+import com.coupon.backend.enums.PointsReason;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One credit (positive delta) or debit (negative delta) of a user's reward points.
+ * Entries are never changed except for being marked compacted once the compactor has
+ * folded them into the user's {@link PointsSnapshot}; a balance is the snapshot plus
+ * the entries not compacted yet.
+ */
+@Entity
+@Table(name = "points_ledger", indexes = {
+        @Index(name = "idx_points_ledger_user_id", columnList = "user_id, id")
+})
+public class PointsLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private PointsReason reason;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean compacted;
+
+    protected PointsLedgerEntry() {
+    }
+
+    public PointsLedgerEntry(UUID userId, int delta, PointsReason reason) {
+        this.userId = userId;
+        this.delta = delta;
+        this.reason = reason;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public PointsReason getReason() {
+        return reason;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isCompacted() {
+        return compacted;
+    }
+}
@@ -0,0 +1,47 @@
+package com.coupon.backend.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The sum of a user's compacted ledger entries; lastEntryId is the highest of them.
+ * Rolled forward by the ledger compactor; never written on the request path.
+ */
+@Entity
+@Table(name = "points_snapshot")
+public class PointsSnapshot {
+
+    @Id
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(nullable = false)
+    private Long balance;
+
+    @Column(nullable = false)
+    private Long lastEntryId;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    protected PointsSnapshot() {
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public Long getBalance() {
+        return balance;
+    }
+
+    public Long getLastEntryId() {
+        return lastEntryId;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -1,12 +1,19 @@
 package com.coupon.backend.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.Instant;
 import java.util.*;
 
 @Entity
-@Table(name = "userdetail")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "userdetail")
+@Table(name = "userdetail", indexes = {
+        @Index(name = "idx_userdetail_token_epoch_changed_at", columnList = "token_epoch_changed_at"),
+        @Index(name = "idx_userdetail_referal_code", columnList = "referalCode", unique = true)
+})
 public class UserDetail {
 
     @Id
@@ -22,12 +29,16 @@ public class UserDetail {
     @Column(name = "password")
     private String password;
 
-    @Column(name = "points")
-    private Integer points;
-
     @Column(name = "referalCode")
     private String referalCode;
 
+    // Tokens issued with a lower epoch are revoked; bumped on logout
+    @Column(name = "token_epoch")
+    private Integer tokenEpoch = 0;
+
+    @Column(name = "token_epoch_changed_at")
+    private Instant tokenEpochChangedAt;
+
     @Column(name = "createdAt")
     private Instant createdAt;
 
@@ -88,9 +99,21 @@ public class UserDetail {
         this.password = password;
     }
 
-    public Integer getPoints(){ return points; }
+    public Integer getTokenEpoch() {
+        return tokenEpoch;
+    }
 
-    public void setPoints(Integer num) { this.points = num; }
+    public void setTokenEpoch(Integer tokenEpoch) {
+        this.tokenEpoch = tokenEpoch;
+    }
+
+    public Instant getTokenEpochChangedAt() {
+        return tokenEpochChangedAt;
+    }
+
+    public void setTokenEpochChangedAt(Instant tokenEpochChangedAt) {
+        this.tokenEpochChangedAt = tokenEpochChangedAt;
+    }
 
     public String getReferalCode() {
         return referalCode;
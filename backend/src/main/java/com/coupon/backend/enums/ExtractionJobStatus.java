@@ -0,0 +1,12 @@
+package com.coupon.backend.enums;
+
+public enum ExtractionJobStatus {
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED;
+
+    public boolean isDone() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -0,0 +1,11 @@
+package com.coupon.backend.enums;
+
+/**
+ * Why a points ledger entry was written. Stored by name.
+ */
+public enum PointsReason {
+    OPENING_BALANCE,
+    SIGNUP_BONUS,
+    COUPON_LISTED,
+    CODE_REVEALED
+}
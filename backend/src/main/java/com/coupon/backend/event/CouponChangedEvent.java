@@ -0,0 +1,12 @@
+package com.coupon.backend.event;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Published inside the transaction that created, updated or (de)activated the given
+ * coupons. Listeners that keep in-memory views of the catalog react after commit and
+ * re-read the rows, so the event only carries ids.
+ */
+public record CouponChangedEvent(Collection<UUID> couponIds) {
+}
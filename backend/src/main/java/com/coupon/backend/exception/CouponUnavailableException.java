@@ -0,0 +1,12 @@
+package com.coupon.backend.exception;
+
+/**
+ * Thrown when a coupon has no unit left to sell or is no longer active. Callers that
+ * keep in-memory stock treat it as the database's word that the coupon is sold out.
+ */
+public class CouponUnavailableException extends RuntimeException {
+
+    public CouponUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.coupon.backend.exception;
+
+/**
+ * Thrown for an extraction job that does not exist, has expired or belongs to someone
+ * else. Answered with 404.
+ */
+public class ExtractionJobNotFoundException extends RuntimeException {
+
+    public ExtractionJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.coupon.backend.exception;
+
+/**
+ * Thrown when a bounded resource is saturated and the request is turned away rather
+ * than queued. Answered with 503 and a Retry-After header.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
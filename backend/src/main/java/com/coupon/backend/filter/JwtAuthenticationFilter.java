@@ -1,6 +1,9 @@
 package com.coupon.backend.filter;
 
+import com.coupon.backend.dto.AuthenticatedUser;
+import com.coupon.backend.service.TokenRevocationService;
 import com.coupon.backend.util.JwtUtil;
+import com.coupon.backend.util.JwtVerifier;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,14 +11,19 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
+/**
+ * Authenticates requests from the JWT alone: the signature and expiry are checked
+ * (once per token, see {@link JwtVerifier}) and the principal is built from the
+ * token's claims, so no user lookup is made per request. Revoked tokens are rejected
+ * through {@link TokenRevocationService}.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -23,7 +31,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private TokenRevocationService tokenRevocationService;
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
@@ -42,34 +50,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        String email = null;
-        String jwt = null;
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                email = jwtUtil.extractEmail(jwt);
-            } catch (Exception e) {
-                // Log error if needed
-            }
-        }
-
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            try {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                if (jwtUtil.validateToken(jwt, email)) {
+                AuthenticatedUser user = authenticate(authHeader.substring(7));
+                if (user != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
+                            user, null, List.of());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
             } catch (Exception e) {
-                // If user not found or token invalid, continue without authentication
+                // If the token is invalid or expired, continue without authentication
                 // This allows the security filter to handle unauthorized requests
             }
         }
 
         filterChain.doFilter(request, response);
     }
-}
 
+    private AuthenticatedUser authenticate(String jwt) {
+        JwtVerifier.VerifiedToken token = jwtUtil.verify(jwt);
+        if (tokenRevocationService.isRevoked(token.userId(), token.epoch())) {
+            return null;
+        }
+        return new AuthenticatedUser(token.userId(), token.email());
+    }
+}
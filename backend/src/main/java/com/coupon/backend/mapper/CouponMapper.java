@@ -1,11 +1,13 @@
 package com.coupon.backend.mapper;
 
+import com.coupon.backend.dto.CouponCardDto;
 import com.coupon.backend.dto.CouponRequestDto;
 import com.coupon.backend.dto.CouponResponseDto;
 import com.coupon.backend.entity.Coupon;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
+import java.util.Locale;
 
 @Component
 public class CouponMapper {
@@ -16,8 +18,8 @@ public class CouponMapper {
         entity.setTitle(dto.title());
         entity.setDescription(dto.description());
         entity.setCode(dto.code());
-        entity.setPlatform(dto.platform());
-        entity.setCategory(dto.category());
+        entity.setPlatform(normalizeFacet(dto.platform()));
+        entity.setCategory(normalizeFacet(dto.category()));
         entity.setDiscountType(dto.discountType());
         entity.setDiscountValue(dto.discountValue());
         entity.setMinOrderValue(dto.minOrderValue());
@@ -39,13 +41,39 @@ public class CouponMapper {
         return entity;
     }
 
+    /**
+     * Platform and category are stored trimmed and lower-cased so browse filters
+     * and facet grouping are plain equality on an indexed column.
+     */
+    public static String normalizeFacet(String value) {
+        if (value == null || value.isBlank()) return null;
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public CouponCardDto toCardDto(Coupon entity) {
+        if (entity == null) return null;
+        return new CouponCardDto(
+                entity.getId(),
+                entity.getTitle(),
+                entity.getPlatform(),
+                entity.getCategory(),
+                entity.getDiscountType(),
+                entity.getDiscountValue(),
+                entity.getValidTill(),
+                entity.getIsActive(),
+                entity.getSoldQuantity(),
+                entity.getPrice(),
+                entity.getIsFree(),
+                entity.getCreatedAt()
+        );
+    }
+
     public CouponResponseDto toResponseDto(Coupon entity) {
         if (entity == null) return null;
         return new CouponResponseDto(
                 entity.getId(),
                 entity.getTitle(),
                 entity.getDescription(),
-                entity.getCode(),
                 entity.getPlatform(),
                 entity.getCategory(),
                 entity.getDiscountType(),
@@ -0,0 +1,290 @@
+package com.coupon.backend.mapper;
+
+import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.enums.DiscountType;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the model's JSON reply straight into {@link CouponRequestDto} in one pass
+ * over the tokens, without building a map first.
+ * <p>
+ * Coercions are lenient in the same places {@link ExtractResultMapper} is, and a few
+ * more: numbers may come as strings (with currency symbols or thousands separators),
+ * booleans as "true"/"false", dates may carry a time part, and an array of terms is
+ * joined into one string. Values that cannot be read become null; malformed input is
+ * checked by hand, so the normal path throws nothing. Number values keep their exact
+ * decimal text instead of going through double. Only JSON that is not well formed
+ * raises an {@link IOException}.
+ */
+@Component
+public class ExtractResultDecoder {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /**
+     * An object of a batch reply with the "index" it declared, or -1 if it had none.
+     */
+    public record IndexedResult(int index, CouponRequestDto result) {
+    }
+
+    /**
+     * Decodes a reply holding a single object.
+     */
+    public CouponRequestDto decode(String json) throws IOException {
+        try (JsonParser p = JSON.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("expected a JSON object");
+            }
+            return decodeObject(p).result();
+        }
+    }
+
+    /**
+     * Decodes a batch reply: one entry per array element, in order, with null results
+     * for elements that are not objects.
+     */
+    public List<IndexedResult> decodeArray(String json) throws IOException {
+        try (JsonParser p = JSON.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("expected a JSON array");
+            }
+            List<IndexedResult> results = new ArrayList<>();
+            JsonToken token;
+            while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) throw new IOException("unexpected end of input");
+                if (token == JsonToken.START_OBJECT) {
+                    results.add(decodeObject(p));
+                } else {
+                    p.skipChildren();
+                    results.add(new IndexedResult(-1, null));
+                }
+            }
+            return results;
+        }
+    }
+
+    // Parser is on START_OBJECT; leaves it on the matching END_OBJECT
+    private static IndexedResult decodeObject(JsonParser p) throws IOException {
+        String title = null, description = null, code = null, platform = null, category = null;
+        String terms = null, usageType = null, geoRestriction = null;
+        DiscountType discountType = null;
+        BigDecimal discountValue = null, minOrderValue = null, maxDiscountValue = null, price = null;
+        LocalDate validFrom = null, validTill = null;
+        Boolean requiresUniqueUser = null, isActive = null, isFree = null;
+        Integer totalQuantity = null;
+        int index = -1;
+
+        String name;
+        while ((name = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "title" -> title = readString(p, token);
+                case "description" -> description = readString(p, token);
+                case "code" -> code = readString(p, token);
+                case "platform" -> platform = readString(p, token);
+                case "category" -> category = readString(p, token);
+                case "discountType" -> discountType = readDiscountType(p, token);
+                case "discountValue" -> discountValue = readDecimal(p, token);
+                case "minOrderValue" -> minOrderValue = readDecimal(p, token);
+                case "maxDiscountValue" -> maxDiscountValue = readDecimal(p, token);
+                case "validFrom" -> validFrom = readDate(p, token);
+                case "validTill" -> validTill = readDate(p, token);
+                case "terms" -> terms = readString(p, token);
+                case "requiresUniqueUser" -> requiresUniqueUser = readBoolean(p, token);
+                case "usageType" -> usageType = readString(p, token);
+                case "geoRestriction" -> geoRestriction = readString(p, token);
+                case "isActive" -> isActive = readBoolean(p, token);
+                case "totalQuantity" -> totalQuantity = readInteger(p, token);
+                case "price" -> price = readDecimal(p, token);
+                case "isFree" -> isFree = readBoolean(p, token);
+                case "index" -> {
+                    Integer i = readInteger(p, token);
+                    if (i != null) index = i;
+                }
+                default -> p.skipChildren();
+            }
+        }
+        if (p.currentToken() != JsonToken.END_OBJECT) {
+            throw new IOException("unexpected end of input");
+        }
+        return new IndexedResult(index, new CouponRequestDto(
+                title, description, code, platform, category,
+                discountType, discountValue, minOrderValue, maxDiscountValue,
+                validFrom, validTill, terms, requiresUniqueUser, usageType,
+                geoRestriction, isActive, totalQuantity, price, isFree
+        ));
+    }
+
+    private static String readString(JsonParser p, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_STRING, VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_TRUE, VALUE_FALSE -> p.getText().strip();
+            case START_ARRAY -> joinArray(p);
+            default -> {
+                p.skipChildren();
+                yield null;
+            }
+        };
+    }
+
+    // A list of terms or rules, one per line
+    private static String joinArray(JsonParser p) throws IOException {
+        StringBuilder joined = new StringBuilder();
+        JsonToken token;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) throw new IOException("unexpected end of input");
+            if (token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+                String item = p.getText().strip();
+                if (!item.isEmpty()) {
+                    if (!joined.isEmpty()) joined.append('\n');
+                    joined.append(item);
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return joined.isEmpty() ? null : joined.toString();
+    }
+
+    private static Boolean readBoolean(JsonParser p, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_STRING -> Boolean.parseBoolean(p.getText().strip());
+            default -> {
+                p.skipChildren();
+                yield null;
+            }
+        };
+    }
+
+    private static Integer readInteger(JsonParser p, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NUMBER_INT -> p.getNumberType() == JsonParser.NumberType.INT ? p.getIntValue() : null;
+            case VALUE_NUMBER_FLOAT -> {
+                // A cast would saturate at the int limits rather than fail
+                double value = p.getDoubleValue();
+                yield value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (int) value : null;
+            }
+            case VALUE_STRING -> {
+                BigDecimal value = parseDecimal(p.getText());
+                yield value != null && value.scale() <= 0 && value.precision() - value.scale() <= 9
+                        ? value.intValue() : null;
+            }
+            default -> {
+                p.skipChildren();
+                yield null;
+            }
+        };
+    }
+
+    private static BigDecimal readDecimal(JsonParser p, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> p.getDecimalValue();
+            case VALUE_STRING -> parseDecimal(p.getText());
+            default -> {
+                p.skipChildren();
+                yield null;
+            }
+        };
+    }
+
+    private static LocalDate readDate(JsonParser p, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_STRING) {
+            p.skipChildren();
+            return null;
+        }
+        return parseIsoDate(p.getText().strip());
+    }
+
+    private static DiscountType readDiscountType(JsonParser p, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_STRING) {
+            p.skipChildren();
+            return null;
+        }
+        String value = p.getText().strip();
+        for (DiscountType type : DiscountType.values()) {
+            if (type.name().equalsIgnoreCase(value)) return type;
+        }
+        return null;
+    }
+
+    /**
+     * Reads "1299", "1,299.50", "₹ 100", "Rs. 100" or "20%": a currency prefix, thousands
+     * separators and a trailing percent sign are dropped. Anything else, including an empty string, is null.
+     */
+    static BigDecimal parseDecimal(String text) {
+        int start = 0;
+        int end = text.length();
+        while (end > start && (Character.isWhitespace(text.charAt(end - 1)) || text.charAt(end - 1) == '%')) end--;
+        // Skip any currency prefix: everything before the number starts
+        while (start < end && !startsNumber(text, start, end)) start++;
+        if (start == end) return null;
+
+        char[] digits = new char[end - start];
+        int length = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+            } else if (c == ',' && seenDigit && !seenPoint) {
+                continue;
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (c != '-' || i != start) {
+                return null;
+            }
+            digits[length++] = c;
+        }
+        return seenDigit && digits[length - 1] != '.' ? new BigDecimal(digits, 0, length) : null;
+    }
+
+    // A digit, or a sign or point followed by one ("-5", ".5" but not "Rs.")
+    private static boolean startsNumber(String text, int i, int end) {
+        char c = text.charAt(i);
+        if (c >= '0' && c <= '9') return true;
+        if (c != '-' && c != '.') return false;
+        int next = c == '-' && i + 1 < end && text.charAt(i + 1) == '.' ? i + 2 : i + 1;
+        return next < end && text.charAt(next) >= '0' && text.charAt(next) <= '9';
+    }
+
+    /**
+     * Reads yyyy-MM-dd, optionally followed by a time ("2026-03-01T00:00:00Z"). Returns
+     * null for anything else, including dates that do not exist.
+     */
+    static LocalDate parseIsoDate(String text) {
+        if (text.length() < 10 || (text.length() > 10 && text.charAt(10) != 'T' && text.charAt(10) != ' ')) {
+            return null;
+        }
+        if (text.charAt(4) != '-' || text.charAt(7) != '-') return null;
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1) return null;
+        int monthLength = month == 2 ? (Year.isLeap(year) ? 29 : 28)
+                : (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+        return day <= monthLength ? LocalDate.of(year, month, day) : null;
+    }
+
+    // The non-negative number in text[from, to), or -1 if it is not all digits
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -16,13 +16,16 @@ public class ExtractResultMapper {
      * Converts the extracted JSON map (from Gemini) to CouponRequestDto.
      */
     public CouponRequestDto toCouponRequestDto(Map<String, Object> map) {
+        return withDefaults(toExtractedDto(map));
+    }
+
+    /**
+     * Converts the extracted JSON map as is, without filling in defaults.
+     */
+    public CouponRequestDto toExtractedDto(Map<String, Object> map) {
         if (map == null) {
             return null;
         }
-        LocalDate validFrom = getLocalDate(map, "validFrom");
-        if (validFrom == null) {
-            validFrom = LocalDate.now();
-        }
         return new CouponRequestDto(
                 getString(map, "title"),
                 getString(map, "description"),
@@ -33,7 +36,7 @@ public class ExtractResultMapper {
                 getBigDecimal(map, "discountValue"),
                 getBigDecimal(map, "minOrderValue"),
                 getBigDecimal(map, "maxDiscountValue"),
-                validFrom,
+                getLocalDate(map, "validFrom"),
                 getLocalDate(map, "validTill"),
                 getString(map, "terms"),
                 getBoolean(map, "requiresUniqueUser"),
@@ -46,6 +49,21 @@ public class ExtractResultMapper {
         );
     }
 
+    /**
+     * Fills in what extraction leaves open: a missing validFrom becomes today.
+     */
+    public CouponRequestDto withDefaults(CouponRequestDto dto) {
+        if (dto == null || dto.validFrom() != null) {
+            return dto;
+        }
+        return new CouponRequestDto(
+                dto.title(), dto.description(), dto.code(), dto.platform(), dto.category(),
+                dto.discountType(), dto.discountValue(), dto.minOrderValue(), dto.maxDiscountValue(),
+                LocalDate.now(), dto.validTill(), dto.terms(), dto.requiresUniqueUser(), dto.usageType(),
+                dto.geoRestriction(), dto.isActive(), dto.totalQuantity(), dto.price(), dto.isFree()
+        );
+    }
+
     private static String getString(Map<String, Object> map, String key) {
         Object v = map.get(key);
         return v == null ? null : v.toString().trim();
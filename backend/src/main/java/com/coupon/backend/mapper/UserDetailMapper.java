@@ -3,44 +3,32 @@ package com.coupon.backend.mapper;
 import com.coupon.backend.dto.UserDetailsRequestDto;
 import com.coupon.backend.dto.UserDetailsResponseDto;
 import com.coupon.backend.entity.UserDetail;
-import com.coupon.backend.repository.UserDetailRepository;
-import com.coupon.backend.util.ReferralCodeGenerator;
+import com.coupon.backend.service.ReferralCodeAllocator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 @Component
 public class UserDetailMapper {
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private ReferralCodeAllocator referralCodeAllocator;
 
-    @Autowired
-    private UserDetailRepository userDetailRepository;
-
-    public UserDetail toEntity(UserDetailsRequestDto userDetailsRequestDto) {
+    public UserDetail toEntity(UserDetailsRequestDto userDetailsRequestDto, String passwordHash) {
         UserDetail userDetail = new UserDetail();
         userDetail.setFullName(userDetailsRequestDto.fullName());
         userDetail.setEmail(userDetailsRequestDto.email());
-        userDetail.setPassword(passwordEncoder.encode(userDetailsRequestDto.password()));
-        userDetail.setPoints(5);
-
-        String referralCode;
-        do {
-            referralCode = ReferralCodeGenerator.generateReferralCode();
-        } while (userDetailRepository.existsByReferalCode(referralCode));
-        
-        userDetail.setReferalCode(referralCode);
+        userDetail.setPassword(passwordHash);
+        userDetail.setReferalCode(referralCodeAllocator.nextCode());
 
         return userDetail;
     }
 
-    public UserDetailsResponseDto toResponseDto(UserDetail userDetail, String token) {
+    public UserDetailsResponseDto toResponseDto(UserDetail userDetail, int points, String token) {
         return new UserDetailsResponseDto(
                 userDetail.getId(),
                 userDetail.getFullName(),
                 userDetail.getEmail(),
-                userDetail.getPoints(),
+                points,
                 token
         );
     }
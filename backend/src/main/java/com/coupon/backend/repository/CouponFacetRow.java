@@ -0,0 +1,4 @@
+package com.coupon.backend.repository;
+
+public record CouponFacetRow(String platform, String category, long count) {
+}
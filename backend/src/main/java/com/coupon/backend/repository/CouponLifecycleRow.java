@@ -0,0 +1,10 @@
+package com.coupon.backend.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Validity window of a coupon that still has a lifecycle boundary ahead of it.
+ */
+public record CouponLifecycleRow(UUID id, LocalDate validFrom, LocalDate validTill, Boolean pendingActivation) {
+}
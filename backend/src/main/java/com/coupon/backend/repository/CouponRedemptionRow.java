@@ -0,0 +1,12 @@
+package com.coupon.backend.repository;
+
+/**
+ * Outcome of {@link CouponRepositoryCustom#redeemCode}. code is set when the user had
+ * already bought the coupon (alreadyRedeemed) or when both the points debit and the
+ * sale went through; the other fields say which step stopped it. remainingPoints is
+ * the balance after the debit, the unchanged balance for a repeat reveal, or null when
+ * nothing was debited.
+ */
+public record CouponRedemptionRow(boolean couponFound, boolean couponAvailable, boolean alreadyRedeemed,
+                                  Integer remainingPoints, String code) {
+}
@@ -1,12 +1,76 @@
 package com.coupon.backend.repository;
 
 import com.coupon.backend.entity.Coupon;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface CouponRepository extends JpaRepository<Coupon, UUID> {
+public interface CouponRepository extends JpaRepository<Coupon, UUID>, CouponRepositoryCustom {
 
-    List<Coupon> findByIsActiveTrueOrderByCreatedAtDesc();
+    @Query("SELECT new com.coupon.backend.repository.CouponLifecycleRow(c.id, c.validFrom, c.validTill, c.pendingActivation) " +
+            "FROM Coupon c WHERE c.pendingActivation = true OR (c.isActive = true AND c.validTill IS NOT NULL)")
+    List<CouponLifecycleRow> findUpcomingLifecycleBoundaries();
+
+    @Query("SELECT new com.coupon.backend.repository.CouponSavingsRow(c.id, c.platform, c.discountType, " +
+            "c.discountValue, c.minOrderValue, c.maxDiscountValue) " +
+            "FROM Coupon c WHERE c.isActive = true AND c.id > :after ORDER BY c.id")
+    List<CouponSavingsRow> findActiveSavingsRows(@Param("after") UUID after, Limit limit);
+
+    @Query("SELECT c.id FROM Coupon c WHERE c.pendingActivation = true AND c.validFrom <= :today")
+    List<UUID> findIdsDueForActivation(@Param("today") LocalDate today);
+
+    @Query("SELECT c.id FROM Coupon c WHERE (c.isActive = true OR c.pendingActivation = true) AND c.validTill < :today")
+    List<UUID> findIdsDueForExpiry(@Param("today") LocalDate today);
+
+    /**
+     * Activates the given pending coupons whose validity window contains today. Ids
+     * that are no longer pending or not yet due are left untouched.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Coupon c SET c.isActive = true, c.pendingActivation = false, c.updatedAt = :now " +
+            "WHERE c.id IN :ids AND c.pendingActivation = true AND c.validFrom <= :today " +
+            "AND (c.validTill IS NULL OR c.validTill >= :today)")
+    int activateDue(@Param("ids") Collection<UUID> ids, @Param("today") LocalDate today, @Param("now") Instant now);
+
+    /**
+     * Deactivates the given coupons whose validTill is before today, including ones
+     * still waiting for activation.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Coupon c SET c.isActive = false, c.pendingActivation = false, c.updatedAt = :now " +
+            "WHERE c.id IN :ids AND c.validTill < :today AND (c.isActive = true OR c.pendingActivation = true)")
+    int expireDue(@Param("ids") Collection<UUID> ids, @Param("today") LocalDate today, @Param("now") Instant now);
+
+    /**
+     * The code of the coupon if the user with this email has already bought it.
+     */
+    @Query(value = "SELECT c.code FROM coupon_redemption r JOIN coupon c ON c.id = r.coupon_id " +
+            "JOIN userdetail u ON u.id = r.user_id WHERE r.coupon_id = :couponId AND u.email = :email",
+            nativeQuery = true)
+    Optional<String> findRedeemedCode(@Param("couponId") UUID couponId, @Param("email") String email);
+
+    /**
+     * Brings platform and category written before they were normalized on save to the
+     * stored form (see CouponMapper.normalizeFacet). Rows already in that form are not
+     * touched, so running it again is cheap.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE coupon SET platform = NULLIF(lower(trim(platform)), ''), " +
+            "category = NULLIF(lower(trim(category)), '') " +
+            "WHERE platform IS DISTINCT FROM NULLIF(lower(trim(platform)), '') " +
+            "OR category IS DISTINCT FROM NULLIF(lower(trim(category)), '')", nativeQuery = true)
+    int normalizeFacets();
 }
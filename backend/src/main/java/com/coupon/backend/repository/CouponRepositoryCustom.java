@@ -0,0 +1,56 @@
+package com.coupon.backend.repository;
+
+import com.coupon.backend.dto.CouponBrowseFilter;
+import com.coupon.backend.dto.CouponCardDto;
+import com.coupon.backend.entity.Coupon;
+import com.coupon.backend.util.BrowseCursor;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface CouponRepositoryCustom {
+
+    /**
+     * Keyset page in (createdAt desc, id desc) order, starting strictly after the given cursor.
+     */
+    List<Coupon> findPage(CouponBrowseFilter filter, BrowseCursor after, int limit);
+
+    /**
+     * {@link #findPage} projected onto the card columns only.
+     */
+    List<CouponCardDto> findCardPage(CouponBrowseFilter filter, BrowseCursor after, int limit);
+
+    /**
+     * {@link #findPage} selecting only the given entity attributes. Each row maps
+     * attribute name to value; id and createdAt are always selected for the cursor.
+     */
+    List<Map<String, Object>> findFieldsPage(CouponBrowseFilter filter, BrowseCursor after, int limit,
+                                             Collection<String> attributes);
+
+    /**
+     * Same ordering and predicates as {@link #findPage}, but unbounded and read through a
+     * JDBC cursor with the given fetch size. Entities are loaded read-only; the caller
+     * must consume the stream inside a transaction and detach rows it is done with.
+     */
+    Stream<Coupon> streamAll(CouponBrowseFilter filter, BrowseCursor after, int fetchSize);
+
+    /**
+     * Coupon counts grouped by (platform, category) under every filter except
+     * platform and category themselves, so both facets come out of one aggregate.
+     */
+    List<CouponFacetRow> countFacets(CouponBrowseFilter filter);
+
+    /**
+     * Debits the user cost points on the ledger, counts one more sale of the coupon,
+     * records the user as its buyer and returns its code, all in one statement. A user
+     * who already bought the coupon gets the code with no debit and no sale. The caller must hold the user's debit
+     * lock, and its transaction must roll back when the returned row carries a debit but
+     * no code, which happens when the coupon sold out between the eligibility check and
+     * the sale.
+     */
+    CouponRedemptionRow redeemCode(UUID couponId, UUID userId, int cost, Instant now);
+}
@@ -0,0 +1,304 @@
+package com.coupon.backend.repository;
+
+import com.coupon.backend.dto.CouponBrowseFilter;
+import com.coupon.backend.dto.CouponCardDto;
+import com.coupon.backend.entity.Coupon;
+import com.coupon.backend.util.BrowseCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.CacheMode;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class CouponRepositoryCustomImpl implements CouponRepositoryCustom {
+
+    /**
+     * Query cache region for browse pages and facet counts. Hibernate invalidates it
+     * whenever the coupon table is written through the session; {@link #redeemCode}
+     * writes it behind the session's back and invalidates it by hand.
+     */
+    static final String BROWSE_CACHE_REGION = "coupon-browse";
+
+    /*
+     * A user who already bought the code gets it back without a debit or a sale. Otherwise
+     * the debit only runs for an existing, available coupon, and the sale and the buyer
+     * row only when the debit did. The caller holds the user's debit lock, so the balance read here
+     * already includes every earlier debit; the sale UPDATE takes the coupon row lock
+     * and re-checks stock on the latest row version, so concurrent reveals of one coupon
+     * cannot lose a sale. Free coupons are not stock-limited; paid ones stop at
+     * totalQuantity.
+     */
+    private static final String REDEEM_CODE_SQL = """
+            WITH prior AS (
+                SELECT r.coupon_id FROM coupon_redemption r
+                WHERE r.user_id = :userId AND r.coupon_id = :couponId
+            ), target AS (
+                SELECT c.id FROM coupon c
+                WHERE c.id = :couponId AND c.is_active AND NOT EXISTS (SELECT 1 FROM prior)
+                  AND (c.is_free OR COALESCE(c.sold_quantity, 0) < COALESCE(c.total_quantity, 1))
+            ), balance AS (
+                SELECT %s AS points
+            ), debit AS (
+                INSERT INTO points_ledger (user_id, delta, reason, created_at)
+                SELECT :userId, -:cost, 'CODE_REVEALED', :now FROM balance
+                WHERE points >= :cost AND EXISTS (SELECT 1 FROM target)
+                RETURNING delta
+            ), sale AS (
+                UPDATE coupon c SET sold_quantity = COALESCE(c.sold_quantity, 0) + 1, updated_at = :now
+                WHERE c.id = :couponId AND c.is_active
+                  AND (c.is_free OR COALESCE(c.sold_quantity, 0) < COALESCE(c.total_quantity, 1))
+                  AND EXISTS (SELECT 1 FROM debit)
+                RETURNING c.code
+            ), bought AS (
+                INSERT INTO coupon_redemption (user_id, coupon_id, points, redeemed_at)
+                SELECT :userId, :couponId, :cost, :now FROM sale
+            )
+            SELECT EXISTS (SELECT 1 FROM coupon WHERE id = :couponId),
+                   EXISTS (SELECT 1 FROM target),
+                   EXISTS (SELECT 1 FROM prior),
+                   CAST(COALESCE((SELECT b.points + d.delta FROM balance b, debit d),
+                                 (SELECT b.points FROM balance b, prior)) AS integer),
+                   COALESCE((SELECT code FROM sale),
+                            (SELECT c.code FROM coupon c, prior WHERE c.id = :couponId))
+            """.formatted(PointsLedgerRepository.BALANCE_SQL);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Coupon> findPage(CouponBrowseFilter filter, BrowseCursor after, int limit) {
+        // Page scans (browse, index load) must not flood the entity region; only id
+        // lookups populate it.
+        return entityManager.createQuery(browseQuery(filter, after))
+                .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.GET)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<CouponCardDto> findCardPage(CouponBrowseFilter filter, BrowseCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CouponCardDto> query = cb.createQuery(CouponCardDto.class);
+        Root<Coupon> root = query.from(Coupon.class);
+
+        query.select(cb.construct(CouponCardDto.class,
+                root.get("id"),
+                root.get("title"),
+                root.get("platform"),
+                root.get("category"),
+                root.get("discountType"),
+                root.get("discountValue"),
+                root.get("validTill"),
+                root.get("isActive"),
+                root.get("soldQuantity"),
+                root.get("price"),
+                root.get("isFree"),
+                root.get("createdAt")));
+        applyBrowse(cb, query, root, filter, after);
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, BROWSE_CACHE_REGION)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsPage(CouponBrowseFilter filter, BrowseCursor after, int limit,
+                                                    Collection<String> attributes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Coupon> root = query.from(Coupon.class);
+
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        selected.addAll(attributes);
+        selected.add("createdAt");
+        query.multiselect(selected.stream()
+                .<Selection<?>>map(name -> root.get(name).alias(name))
+                .toList());
+        applyBrowse(cb, query, root, filter, after);
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, BROWSE_CACHE_REGION)
+                .setMaxResults(limit)
+                .getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String name : selected) {
+                row.put(name, tuple.get(name));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Override
+    public Stream<Coupon> streamAll(CouponBrowseFilter filter, BrowseCursor after, int fetchSize) {
+        return entityManager.createQuery(browseQuery(filter, after))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream();
+    }
+
+    @Override
+    public List<CouponFacetRow> countFacets(CouponBrowseFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CouponFacetRow> query = cb.createQuery(CouponFacetRow.class);
+        Root<Coupon> root = query.from(Coupon.class);
+
+        Path<String> platform = root.get("platform");
+        Path<String> category = root.get("category");
+        query.select(cb.construct(CouponFacetRow.class, platform, category, cb.count(root)));
+        query.where(filterPredicates(cb, root, filter, false).toArray(Predicate[]::new));
+        query.groupBy(platform, category);
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, BROWSE_CACHE_REGION)
+                .getResultList();
+    }
+
+    @Override
+    public CouponRedemptionRow redeemCode(UUID couponId, UUID userId, int cost, Instant now) {
+        Object[] row = (Object[]) entityManager.createNativeQuery(REDEEM_CODE_SQL)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Coupon.class)
+                .setParameter("couponId", couponId)
+                .setParameter("userId", userId)
+                .setParameter("cost", cost)
+                .setParameter("now", now)
+                .getSingleResult();
+        CouponRedemptionRow result = new CouponRedemptionRow(
+                (Boolean) row[0],
+                (Boolean) row[1],
+                (Boolean) row[2],
+                row[3] != null ? ((Number) row[3]).intValue() : null,
+                (String) row[4]);
+        if (result.code() != null && !result.alreadyRedeemed()) {
+            lockCachedEntity(Coupon.class, couponId);
+            invalidateCachedQueries(Coupon.class);
+        }
+        return result;
+    }
+
+    /**
+     * Invalidates cached query results over an entity's tables after a write Hibernate
+     * cannot see. A native query that returns rows is treated as a read, so its
+     * synchronized spaces only decide what is flushed before it runs; this does what
+     * Hibernate does for a bulk update, without evicting the entity region as well.
+     */
+    private void invalidateCachedQueries(Class<?> entityClass) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        TimestampsCache timestamps = session.getFactory().getCache().getTimestampsCache();
+        String[] spaces = session.getFactory().getMappingMetamodel().getEntityDescriptor(entityClass)
+                .getSynchronizedQuerySpaces();
+        timestamps.preInvalidate(spaces, session);
+        session.getActionQueue().registerProcess((success, completed) -> timestamps.invalidate(spaces, completed));
+    }
+
+    /**
+     * Soft-locks the second-level cache entry of a row written behind the session's
+     * back, the way Hibernate does for its own updates: loads that read the old row
+     * before this transaction commits cannot put it back into the cache, and the next
+     * load after completion reads the new row.
+     */
+    private void lockCachedEntity(Class<?> entityClass, Object id) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(entityClass);
+        EntityDataAccess cache = persister.getCacheAccessStrategy();
+        if (cache == null) return;
+        Object key = cache.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier());
+        SoftLock lock = cache.lockItem(session, key, null);
+        session.getActionQueue().registerProcess((success, completed) -> cache.unlockItem(completed, key, lock));
+    }
+
+    private CriteriaQuery<Coupon> browseQuery(CouponBrowseFilter filter, BrowseCursor after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Coupon> query = cb.createQuery(Coupon.class);
+        Root<Coupon> root = query.from(Coupon.class);
+        applyBrowse(cb, query, root, filter, after);
+        return query;
+    }
+
+    private static void applyBrowse(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Coupon> root,
+                                    CouponBrowseFilter filter, BrowseCursor after) {
+        List<Predicate> predicates = filterPredicates(cb, root, filter, true);
+        if (after != null) {
+            predicates.add(keysetAfter(cb, root, after));
+        }
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+    }
+
+    private static List<Predicate> filterPredicates(CriteriaBuilder cb, Root<Coupon> root,
+                                                    CouponBrowseFilter filter, boolean includeFacets) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.activeOnly()) {
+            predicates.add(cb.isTrue(root.get("isActive")));
+        }
+        if (includeFacets && filter.platform() != null) {
+            predicates.add(cb.equal(root.get("platform"), filter.platform()));
+        }
+        if (includeFacets && filter.category() != null) {
+            predicates.add(cb.equal(root.get("category"), filter.category()));
+        }
+        if (filter.discountType() != null) {
+            predicates.add(cb.equal(root.get("discountType"), filter.discountType()));
+        }
+        if (filter.freeOnly()) {
+            predicates.add(cb.isTrue(root.get("isFree")));
+        }
+        if (filter.validOn() != null) {
+            Path<LocalDate> validFrom = root.get("validFrom");
+            Path<LocalDate> validTill = root.get("validTill");
+            predicates.add(cb.or(cb.isNull(validFrom), cb.lessThanOrEqualTo(validFrom, filter.validOn())));
+            predicates.add(cb.or(cb.isNull(validTill), cb.greaterThanOrEqualTo(validTill, filter.validOn())));
+        }
+        return predicates;
+    }
+
+    /**
+     * (createdAt, id) &lt; (cursor.createdAt, cursor.id), written so that the leading
+     * createdAt &lt;= bound is an index range condition and the id tie-break only
+     * filters rows sharing the cursor's timestamp.
+     */
+    private static Predicate keysetAfter(CriteriaBuilder cb, Root<Coupon> root, BrowseCursor after) {
+        Path<Instant> createdAt = root.get("createdAt");
+        Path<UUID> id = root.get("id");
+        return cb.and(
+                cb.lessThanOrEqualTo(createdAt, after.createdAt()),
+                cb.or(
+                        cb.lessThan(createdAt, after.createdAt()),
+                        cb.lessThan(id, after.id())
+                )
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package com.coupon.backend.repository;
+
+import com.coupon.backend.enums.DiscountType;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Discount terms of an active coupon, as loaded into the best-coupon index.
+ */
+public record CouponSavingsRow(UUID id, String platform, DiscountType discountType, BigDecimal discountValue,
+                               BigDecimal minOrderValue, BigDecimal maxDiscountValue) {
+}
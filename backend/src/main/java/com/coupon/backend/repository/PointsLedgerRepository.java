@@ -0,0 +1,109 @@
+package com.coupon.backend.repository;
+
+import com.coupon.backend.entity.PointsLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface PointsLedgerRepository extends JpaRepository<PointsLedgerEntry, Long> {
+
+    /**
+     * Balance of :userId: the snapshot plus the entries not compacted into it yet. Both
+     * parts are read in one statement, so a concurrent compaction is seen entirely or
+     * not at all.
+     */
+    String BALANCE_SQL =
+            "COALESCE((SELECT s.balance FROM points_snapshot s WHERE s.user_id = :userId), 0) + " +
+            "COALESCE((SELECT SUM(l.delta) FROM points_ledger l WHERE l.user_id = :userId AND NOT l.compacted), 0)";
+
+    @Query(value = "SELECT " + BALANCE_SQL, nativeQuery = true)
+    long balanceOf(@Param("userId") UUID userId);
+
+    /**
+     * Takes a transaction-scoped advisory lock, held until the surrounding transaction
+     * ends. Used to serialize the debits of one user.
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:key)) l", nativeQuery = true)
+    int lock(@Param("key") long key);
+
+    /**
+     * Appends a debit of :amount if the balance covers it and returns the balance after
+     * it, or null without writing anything when it does not. Call with the user's lock
+     * held, in a statement after taking it, so the balance read sees every debit that
+     * committed before.
+     */
+    @Transactional
+    @Query(value = "WITH balance AS (SELECT " + BALANCE_SQL + " AS points), " +
+            "debit AS (INSERT INTO points_ledger (user_id, delta, reason, created_at) " +
+            "SELECT :userId, -:amount, :reason, :now FROM balance WHERE points >= :amount RETURNING delta) " +
+            "SELECT CAST(b.points + d.delta AS integer) FROM balance b, debit d", nativeQuery = true)
+    Integer debit(@Param("userId") UUID userId, @Param("amount") int amount, @Param("reason") String reason,
+                  @Param("now") Instant now);
+
+    /**
+     * Carries forward the legacy userdetail.points column as one OPENING_BALANCE entry
+     * per user that has none yet.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO points_ledger (user_id, delta, reason, created_at) " +
+            "SELECT u.id, u.points, 'OPENING_BALANCE', :now FROM userdetail u " +
+            "WHERE COALESCE(u.points, 0) <> 0 AND NOT EXISTS (SELECT 1 FROM points_ledger l " +
+            "WHERE l.user_id = u.id AND l.reason = 'OPENING_BALANCE')", nativeQuery = true)
+    int insertOpeningBalances(@Param("now") Instant now);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM information_schema.columns " +
+            "WHERE table_name = 'userdetail' AND column_name = 'points')", nativeQuery = true)
+    boolean hasLegacyPointsColumn();
+
+    /**
+     * Index of the ledger tail: balance reads and compaction only look at entries that
+     * are not compacted yet. JPA cannot declare a partial index, so it is created here.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "CREATE INDEX IF NOT EXISTS idx_points_ledger_tail ON points_ledger (user_id) " +
+            "WHERE NOT compacted", nativeQuery = true)
+    void createTailIndex();
+
+    /**
+     * Folds up to :limit entries into their users' snapshots, creating snapshots as
+     * needed, and marks them compacted in the same statement. Entries written by
+     * transactions that have not committed are not visible here and stay in the tail
+     * until a later run, whatever their id; entries another compaction holds are
+     * skipped. Returns the number of entries folded.
+     */
+    @Transactional
+    @Query(value = "WITH due AS (SELECT l.id FROM points_ledger l WHERE NOT l.compacted " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED), " +
+            "folded AS (UPDATE points_ledger l SET compacted = true FROM due WHERE l.id = due.id " +
+            "RETURNING l.id, l.user_id, l.delta), " +
+            "snapshots AS (INSERT INTO points_snapshot (user_id, balance, last_entry_id, updated_at) " +
+            "SELECT f.user_id, SUM(f.delta), MAX(f.id), :now FROM folded f GROUP BY f.user_id " +
+            "ON CONFLICT (user_id) DO UPDATE SET balance = points_snapshot.balance + EXCLUDED.balance, " +
+            "last_entry_id = GREATEST(points_snapshot.last_entry_id, EXCLUDED.last_entry_id), " +
+            "updated_at = EXCLUDED.updated_at) " +
+            "SELECT CAST(COUNT(*) AS integer) FROM folded", nativeQuery = true)
+    int compact(@Param("limit") int limit, @Param("now") Instant now);
+
+    /**
+     * Credits up to :limit pending listing rewards: clears them on their coupons and
+     * appends one COUPON_LISTED entry per lister with the sum, in one statement. Rows
+     * another transaction is crediting are skipped rather than waited for. Returns the
+     * number of coupons credited.
+     */
+    @Transactional
+    @Query(value = "WITH due AS (SELECT c.id, c.listed_by, c.listing_reward_pending AS points FROM coupon c " +
+            "WHERE c.listing_reward_pending > 0 LIMIT :limit FOR UPDATE SKIP LOCKED), " +
+            "cleared AS (UPDATE coupon c SET listing_reward_pending = NULL FROM due WHERE c.id = due.id), " +
+            "credited AS (INSERT INTO points_ledger (user_id, delta, reason, created_at) " +
+            "SELECT due.listed_by, SUM(due.points), 'COUPON_LISTED', :now FROM due " +
+            "WHERE due.listed_by IS NOT NULL GROUP BY due.listed_by) " +
+            "SELECT CAST(COUNT(*) AS integer) FROM due", nativeQuery = true)
+    int creditListingRewards(@Param("limit") int limit, @Param("now") Instant now);
+}
@@ -0,0 +1,7 @@
+package com.coupon.backend.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record TokenEpochRow(UUID userId, Integer tokenEpoch, Instant changedAt) {
+}
@@ -1,15 +1,56 @@
 package com.coupon.backend.repository;
 
 import com.coupon.backend.entity.UserDetail;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserDetailRepository extends JpaRepository<UserDetail, UUID> {
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "userdetail-by-email")
+    })
     Optional<UserDetail> findByEmail(String email);
     boolean existsByEmail(String email);
-    boolean existsByReferalCode(String referalCode);
+
+    @Transactional
+    @Modifying
+    @Query(value = "CREATE SEQUENCE IF NOT EXISTS referral_code_block_seq MINVALUE 0 START WITH 0", nativeQuery = true)
+    void createReferralCodeBlockSequence();
+
+    @Query(value = "SELECT nextval('referral_code_block_seq')", nativeQuery = true)
+    long nextReferralCodeBlock();
+
+    @Query("SELECT new com.coupon.backend.repository.TokenEpochRow(u.id, u.tokenEpoch, u.tokenEpochChangedAt) " +
+            "FROM UserDetail u WHERE u.tokenEpochChangedAt > :since")
+    List<TokenEpochRow> findTokenEpochsChangedSince(@Param("since") Instant since);
+
+    @Query("SELECT COALESCE(u.tokenEpoch, 0) FROM UserDetail u WHERE u.id = :id")
+    Optional<Integer> findTokenEpoch(@Param("id") UUID id);
+
+    /**
+     * Revokes every token issued to the user so far.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserDetail u SET u.tokenEpoch = COALESCE(u.tokenEpoch, 0) + 1, u.tokenEpochChangedAt = :now " +
+            "WHERE u.id = :id")
+    int incrementTokenEpoch(@Param("id") UUID id, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserDetail u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordHash(@Param("id") UUID id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
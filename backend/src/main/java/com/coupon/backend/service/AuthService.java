@@ -4,12 +4,15 @@ import com.coupon.backend.dto.SingInRequestDto;
 import com.coupon.backend.dto.UserDetailsRequestDto;
 import com.coupon.backend.dto.UserDetailsResponseDto;
 import com.coupon.backend.entity.UserDetail;
+import com.coupon.backend.enums.PointsReason;
 import com.coupon.backend.mapper.UserDetailMapper;
 import com.coupon.backend.repository.UserDetailRepository;
 import com.coupon.backend.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -17,27 +20,44 @@ import java.util.UUID;
 @Service
 public class AuthService {
 
+    private static final int SIGNUP_BONUS_POINTS = 5;
+    private static final int REFERRAL_CODE_ATTEMPTS = 3;
+    private static final String REFERRAL_CODE_INDEX = "idx_userdetail_referal_code";
+
     @Autowired
     private UserDetailRepository userDetailRepository;
 
     @Autowired
     private UserDetailMapper userDetailMapper;
 
+    @Autowired
+    private RewardPointsService rewardPointsService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
+    /**
+     * Hashes the password before the transaction opens, so no database connection is
+     * held while waiting for the hashing pool.
+     */
     public UserDetailsResponseDto register(UserDetailsRequestDto requestDto) {
         if (userDetailRepository.existsByEmail(requestDto.email())) {
             throw new RuntimeException("User with this email already exists");
         }
 
-        UserDetail user = userDetailMapper.toEntity(requestDto);
-        UserDetail savedUser = userDetailRepository.save(user);
-        String token = jwtUtil.generateToken(savedUser.getEmail());
-        return userDetailMapper.toResponseDto(savedUser, token);
+        String passwordHash = passwordHashingService.hash(requestDto.password());
+        UserDetail savedUser = saveNewUser(requestDto, passwordHash);
+        String token = issueToken(savedUser);
+        return userDetailMapper.toResponseDto(savedUser, SIGNUP_BONUS_POINTS, token);
     }
 
     public UserDetailsResponseDto signin(SingInRequestDto requestDto) {
@@ -48,12 +68,54 @@ public class AuthService {
 
         UserDetail user = userOptional.get();
 
-        if (!passwordEncoder.matches(requestDto.password(), user.getPassword())) {
+        if (!passwordHashingService.matches(requestDto.password(), user.getPassword())) {
             throw new RuntimeException("Invalid password");
         }
+        passwordHashingService.rehashIfNeeded(user.getId(), requestDto.password(), user.getPassword());
+
+        String token = issueToken(user);
+        return userDetailMapper.toResponseDto(user, rewardPointsService.getPoints(user.getId()), token);
+    }
+
+    /**
+     * Revokes the presented token along with every other token issued to the same
+     * user before it.
+     */
+    public void logout(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new RuntimeException("Missing bearer token");
+        }
+        UUID userId;
+        try {
+            userId = jwtUtil.verify(authHeader.substring(7)).userId();
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid or expired token");
+        }
+        tokenRevocationService.revokeAll(userId);
+    }
+
+    private UserDetail saveNewUser(UserDetailsRequestDto requestDto, String passwordHash) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    UserDetail user = userDetailRepository.saveAndFlush(userDetailMapper.toEntity(requestDto, passwordHash));
+                    rewardPointsService.addPoints(user.getId(), SIGNUP_BONUS_POINTS, PointsReason.SIGNUP_BONUS);
+                    return user;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Only a referral code left over from the old random generator can clash;
+                // the next attempt gets the next code
+                if (attempt >= REFERRAL_CODE_ATTEMPTS || !String.valueOf(e.getMessage()).contains(REFERRAL_CODE_INDEX)) {
+                    throw e;
+                }
+            }
+        }
+    }
 
-        String token = jwtUtil.generateToken(user.getEmail());
-        return userDetailMapper.toResponseDto(user, token);
+    // The user may come from the by-email cache, whose copy can predate a logout
+    private String issueToken(UserDetail user) {
+        int epoch = tokenRevocationService.currentEpoch(user.getId());
+        return jwtUtil.generateToken(user.getId(), user.getEmail(), epoch);
     }
 }
 
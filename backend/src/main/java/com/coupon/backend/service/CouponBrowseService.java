@@ -1,37 +1,179 @@
 package com.coupon.backend.service;
 
+import com.coupon.backend.dto.CouponBrowseFilter;
+import com.coupon.backend.dto.CouponCardDto;
+import com.coupon.backend.dto.CouponFacetsDto;
+import com.coupon.backend.dto.CouponPageResponseDto;
 import com.coupon.backend.dto.CouponResponseDto;
 import com.coupon.backend.entity.Coupon;
 import com.coupon.backend.mapper.CouponMapper;
+import com.coupon.backend.repository.CouponFacetRow;
 import com.coupon.backend.repository.CouponRepository;
+import com.coupon.backend.util.BrowseCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CouponBrowseService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CouponBrowseService.class);
+
     @Autowired
     private CouponRepository couponRepository;
 
     @Autowired
     private CouponMapper couponMapper;
 
-    public List<CouponResponseDto> browseActive() {
-        return couponRepository.findByIsActiveTrueOrderByCreatedAtDesc().stream()
-                .map(couponMapper::toResponseDto)
-                .collect(Collectors.toList());
+    @Autowired
+    private CouponBrowseSnapshot couponBrowseSnapshot;
+
+    @Value("${coupon.browse.default-page-size:24}")
+    private int defaultPageSize;
+
+    @Value("${coupon.browse.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${coupon.browse.stream-fetch-size:500}")
+    private int streamFetchSize;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Coupon attributes a client may ask for with fields=. The code is deliberately
+     * absent; it is only revealed through the view-code endpoint.
+     */
+    private static final Set<String> SELECTABLE_FIELDS = Set.of(
+            "id", "title", "description", "platform", "category", "discountType", "discountValue",
+            "minOrderValue", "maxDiscountValue", "validFrom", "validTill", "terms", "requiresUniqueUser",
+            "usageType", "geoRestriction", "isActive", "totalQuantity", "soldQuantity", "price", "isFree",
+            "createdAt", "updatedAt"
+    );
+
+    /**
+     * Normalizes the platform and category of rows saved before normalization, ahead
+     * of the listeners that load coupons into memory, so filters and facet counts see
+     * one spelling per value.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void normalizeLegacyFacets() {
+        int normalized = couponRepository.normalizeFacets();
+        if (normalized > 0) {
+            logger.info("Normalized platform and category of {} coupons", normalized);
+        }
+    }
+
+    /**
+     * Returns one keyset page of coupons, newest first. The cursor is the opaque
+     * nextCursor of the previous page (null for the first page). Facet counts are
+     * only computed for the first page; later pages return null facets.
+     */
+    public CouponPageResponseDto<CouponResponseDto> browse(CouponBrowseFilter filter, String cursor, Integer limit) {
+        return page(filter, cursor, limit,
+                (normalized, after, fetch) -> couponRepository.findPage(normalized, after, fetch).stream()
+                        .map(couponMapper::toResponseDto)
+                        .collect(Collectors.toList()),
+                dto -> BrowseCursor.of(dto.createdAt(), dto.id()));
+    }
+
+    /**
+     * Same page as {@link #browse}, but only the columns the browse grid renders are
+     * selected. Full details are fetched per coupon when a card is opened.
+     */
+    public CouponPageResponseDto<CouponCardDto> browseCards(CouponBrowseFilter filter, String cursor, Integer limit) {
+        return page(filter, cursor, limit,
+                couponRepository::findCardPage,
+                card -> BrowseCursor.of(card.createdAt(), card.id()));
+    }
+
+    /**
+     * {@link #browseCards} served from the in-memory snapshot as ready-to-send bytes,
+     * or null when the snapshot cannot answer the request and the caller should use
+     * {@link #browseCards}.
+     */
+    public CouponBrowseSnapshot.EncodedPage browseCardsEncoded(CouponBrowseFilter filter, String cursor,
+                                                               Integer limit) {
+        return couponBrowseSnapshot.page(normalize(filter), BrowseCursor.decode(cursor), resolvePageSize(limit));
+    }
+
+    /**
+     * Same page as {@link #browse}, restricted to the requested fields. id is always
+     * included. Unknown fields and fields that are not public (such as the code) are
+     * rejected.
+     */
+    public CouponPageResponseDto<Map<String, Object>> browseFields(CouponBrowseFilter filter, String cursor,
+                                                                  Integer limit, List<String> fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (field.isBlank()) continue;
+            if (!SELECTABLE_FIELDS.contains(field)) {
+                throw new RuntimeException("Unknown field: " + field);
+            }
+            requested.add(field);
+        }
+        if (requested.isEmpty()) {
+            throw new RuntimeException("fields must name at least one field");
+        }
+        boolean keepCreatedAt = requested.contains("createdAt");
+        CouponPageResponseDto<Map<String, Object>> page = page(filter, cursor, limit,
+                (normalized, after, fetch) -> couponRepository.findFieldsPage(normalized, after, fetch, requested),
+                row -> BrowseCursor.of((Instant) row.get("createdAt"), (UUID) row.get("id")));
+        if (!keepCreatedAt) {
+            // Selected only to build the cursor
+            page.items().forEach(row -> row.remove("createdAt"));
+        }
+        return page;
     }
 
-    public List<CouponResponseDto> browseAll() {
-        return couponRepository.findAll().stream()
-                .sorted(Comparator.comparing(Coupon::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
-                .map(couponMapper::toResponseDto)
-                .collect(Collectors.toList());
+    /**
+     * Writes every matching coupon to the output as newline-delimited JSON, one row at
+     * a time. Rows are mapped and detached as soon as they are written, so memory stays
+     * flat regardless of catalog size.
+     */
+    @Transactional(readOnly = true)
+    public void streamTo(CouponBrowseFilter filter, String cursor, OutputStream out) throws IOException {
+        BrowseCursor after = BrowseCursor.decode(cursor);
+        ObjectWriter writer = objectMapper.writerFor(CouponResponseDto.class);
+        try (Stream<Coupon> rows = couponRepository.streamAll(normalize(filter), after, streamFetchSize)) {
+            Iterator<Coupon> it = rows.iterator();
+            while (it.hasNext()) {
+                Coupon coupon = it.next();
+                out.write(writer.writeValueAsBytes(couponMapper.toResponseDto(coupon)));
+                out.write('\n');
+                entityManager.detach(coupon);
+            }
+        }
+        out.flush();
     }
 
     public CouponResponseDto getById(UUID id) {
@@ -39,4 +181,60 @@ public class CouponBrowseService {
                 .orElseThrow(() -> new RuntimeException("Coupon not found: " + id));
         return couponMapper.toResponseDto(coupon);
     }
+
+    private <T> CouponPageResponseDto<T> page(CouponBrowseFilter filter, String cursor, Integer limit,
+                                              PageQuery<T> query, Function<T, BrowseCursor> cursorOf) {
+        int pageSize = resolvePageSize(limit);
+        BrowseCursor after = BrowseCursor.decode(cursor);
+        CouponBrowseFilter normalized = normalize(filter);
+
+        // Fetch one extra row to learn whether another page exists without a count query
+        List<T> rows = query.fetch(normalized, after, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<T> items = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = hasMore ? cursorOf.apply(items.get(items.size() - 1)).encode() : null;
+        CouponFacetsDto facets = after == null ? facets(normalized) : null;
+        return new CouponPageResponseDto<>(items, nextCursor, hasMore, facets);
+    }
+
+    @FunctionalInterface
+    private interface PageQuery<T> {
+        List<T> fetch(CouponBrowseFilter filter, BrowseCursor after, int limit);
+    }
+
+    /**
+     * Folds the (platform, category) groups into per-facet counts. Each facet is
+     * counted under the other facet's selection but not its own, so the client can
+     * show how many coupons switching to another platform or category would yield.
+     */
+    private CouponFacetsDto facets(CouponBrowseFilter filter) {
+        Map<String, Long> platforms = new TreeMap<>();
+        Map<String, Long> categories = new TreeMap<>();
+        for (CouponFacetRow row : couponRepository.countFacets(filter)) {
+            if (row.platform() != null && (filter.category() == null || filter.category().equals(row.category()))) {
+                platforms.merge(row.platform(), row.count(), Long::sum);
+            }
+            if (row.category() != null && (filter.platform() == null || filter.platform().equals(row.platform()))) {
+                categories.merge(row.category(), row.count(), Long::sum);
+            }
+        }
+        return new CouponFacetsDto(platforms, categories);
+    }
+
+    private static CouponBrowseFilter normalize(CouponBrowseFilter filter) {
+        return new CouponBrowseFilter(
+                filter.activeOnly(),
+                CouponMapper.normalizeFacet(filter.platform()),
+                CouponMapper.normalizeFacet(filter.category()),
+                filter.discountType(),
+                filter.freeOnly(),
+                filter.validOn()
+        );
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) return Math.min(defaultPageSize, maxPageSize);
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
 }
@@ -0,0 +1,347 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.CouponBrowseFilter;
+import com.coupon.backend.dto.CouponCardDto;
+import com.coupon.backend.dto.CouponFacetsDto;
+import com.coupon.backend.entity.Coupon;
+import com.coupon.backend.enums.DiscountType;
+import com.coupon.backend.event.CouponChangedEvent;
+import com.coupon.backend.mapper.CouponMapper;
+import com.coupon.backend.repository.CouponRepository;
+import com.coupon.backend.util.BrowseCursor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Versioned in-memory copy of the active catalog for card browsing.
+ * <p>
+ * Each active coupon is held as its card JSON, serialized once when it is loaded or
+ * changes. Pages are stitched together from those fragments, gzipped once, and kept
+ * per (filter, cursor, limit) until the next {@link CouponChangedEvent} bumps the
+ * version, so repeated requests for the same page are answered from byte arrays.
+ * Requests the snapshot cannot answer (inactive rows, validOn) go to the database.
+ */
+@Component
+public class CouponBrowseSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponBrowseSnapshot.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private static final byte[] ITEMS_START = "{\"items\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NEXT_CURSOR = "],\"nextCursor\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HAS_MORE = ",\"hasMore\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FACETS = ",\"facets\":".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * A page as it goes on the wire, in both encodings. The etag changes with every
+     * catalog version.
+     */
+    public record EncodedPage(String etag, byte[] identity, byte[] gzip) {
+    }
+
+    /**
+     * Browse order: newest first, ties by id descending. Ids compare as unsigned bytes,
+     * the way Postgres orders uuid, so cursors are interchangeable with the database path.
+     */
+    private record RowKey(Instant createdAt, UUID id) implements Comparable<RowKey> {
+        @Override
+        public int compareTo(RowKey other) {
+            int cmp = other.createdAt.compareTo(createdAt);
+            if (cmp != 0) return cmp;
+            cmp = Long.compareUnsigned(other.id.getMostSignificantBits(), id.getMostSignificantBits());
+            if (cmp != 0) return cmp;
+            return Long.compareUnsigned(other.id.getLeastSignificantBits(), id.getLeastSignificantBits());
+        }
+    }
+
+    private record Row(RowKey key, String platform, String category, DiscountType discountType,
+                       boolean free, byte[] json) {
+    }
+
+    /**
+     * Row counts per facet group, so facet folding touches a few hundred groups instead
+     * of every row.
+     */
+    private record FacetGroup(String platform, String category, DiscountType discountType, boolean free) {
+    }
+
+    private record PageKey(CouponBrowseFilter filter, BrowseCursor after, int limit) {
+    }
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private CouponMapper couponMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${coupon.browse.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${coupon.browse.snapshot.page-cache-size:256}")
+    private int pageCacheSize;
+
+    // Distinguishes etags across restarts, when the version starts over
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final TreeMap<RowKey, Row> rows = new TreeMap<>();
+    private final Map<UUID, RowKey> keyByCoupon = new HashMap<>();
+    private final Map<FacetGroup, Long> facetGroups = new HashMap<>();
+    private final Set<UUID> changedDuringLoad = new HashSet<>();
+    private volatile long version;
+    private volatile boolean ready;
+
+    // Assembled pages of the current version, least recently used evicted first
+    private final Map<PageKey, EncodedPage> pages = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PageKey, EncodedPage> eldest) {
+            return size() > pageCacheSize;
+        }
+    };
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) return;
+        Thread loader = new Thread(this::loadActiveCoupons, "coupon-browse-snapshot-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCouponChanged(CouponChangedEvent event) {
+        if (!enabled) return;
+        Map<UUID, Row> fresh = new HashMap<>();
+        for (Coupon coupon : couponRepository.findAllById(event.couponIds())) {
+            if (Boolean.TRUE.equals(coupon.getIsActive())) {
+                fresh.put(coupon.getId(), toRow(couponMapper.toCardDto(coupon)));
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            for (UUID couponId : event.couponIds()) {
+                removeRow(couponId);
+                Row row = fresh.get(couponId);
+                if (row != null) {
+                    addRow(row);
+                }
+                if (!ready) {
+                    changedDuringLoad.add(couponId);
+                }
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        synchronized (pages) {
+            pages.clear();
+        }
+    }
+
+    /**
+     * Returns the requested card page ready to send, or null when the snapshot is
+     * disabled, still loading, or cannot answer this filter. The filter must already
+     * be normalized.
+     */
+    public EncodedPage page(CouponBrowseFilter filter, BrowseCursor after, int limit) {
+        if (!enabled || !ready || !filter.activeOnly() || filter.validOn() != null) return null;
+        PageKey key = new PageKey(filter, after, limit);
+        synchronized (pages) {
+            EncodedPage cached = pages.get(key);
+            if (cached != null) return cached;
+        }
+
+        byte[] identity;
+        long builtFor;
+        lock.readLock().lock();
+        try {
+            builtFor = version;
+            identity = assemble(filter, after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        EncodedPage page = new EncodedPage("W/\"" + epoch + "-" + builtFor + "\"", identity, gzip(identity));
+        synchronized (pages) {
+            // A change may have landed while assembling; never cache a page under a stale version
+            if (builtFor == version) {
+                pages.put(key, page);
+            }
+        }
+        return page;
+    }
+
+    private byte[] assemble(CouponBrowseFilter filter, BrowseCursor after, int limit) {
+        Map<RowKey, Row> candidates = after == null
+                ? rows
+                : rows.tailMap(new RowKey(after.createdAt(), after.id()), false);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 * limit + 512);
+        out.writeBytes(ITEMS_START);
+        Row last = null;
+        int count = 0;
+        boolean hasMore = false;
+        for (Row row : candidates.values()) {
+            if (!matches(row, filter)) continue;
+            if (count == limit) {
+                hasMore = true;
+                break;
+            }
+            if (count++ > 0) out.write(',');
+            out.writeBytes(row.json());
+            last = row;
+        }
+        String nextCursor = hasMore ? BrowseCursor.of(last.key().createdAt(), last.key().id()).encode() : null;
+        try {
+            out.writeBytes(NEXT_CURSOR);
+            out.writeBytes(objectMapper.writeValueAsBytes(nextCursor));
+            out.writeBytes(HAS_MORE);
+            out.writeBytes(Boolean.toString(hasMore).getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(FACETS);
+            out.writeBytes(objectMapper.writeValueAsBytes(after == null ? facets(filter) : null));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode browse page", e);
+        }
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    /**
+     * Same semantics as the database facets: each facet is counted under the other
+     * facet's selection but not its own.
+     */
+    private CouponFacetsDto facets(CouponBrowseFilter filter) {
+        Map<String, Long> platforms = new TreeMap<>();
+        Map<String, Long> categories = new TreeMap<>();
+        for (Map.Entry<FacetGroup, Long> entry : facetGroups.entrySet()) {
+            FacetGroup group = entry.getKey();
+            if (filter.discountType() != null && filter.discountType() != group.discountType()) continue;
+            if (filter.freeOnly() && !group.free()) continue;
+            if (group.platform() != null && (filter.category() == null || filter.category().equals(group.category()))) {
+                platforms.merge(group.platform(), entry.getValue(), Long::sum);
+            }
+            if (group.category() != null && (filter.platform() == null || filter.platform().equals(group.platform()))) {
+                categories.merge(group.category(), entry.getValue(), Long::sum);
+            }
+        }
+        return new CouponFacetsDto(platforms, categories);
+    }
+
+    private static boolean matches(Row row, CouponBrowseFilter filter) {
+        if (filter.discountType() != null && filter.discountType() != row.discountType()) return false;
+        if (filter.freeOnly() && !row.free()) return false;
+        if (filter.platform() != null && !filter.platform().equals(row.platform())) return false;
+        return filter.category() == null || filter.category().equals(row.category());
+    }
+
+    private void addRow(Row row) {
+        rows.put(row.key(), row);
+        keyByCoupon.put(row.key().id(), row.key());
+        facetGroups.merge(facetGroup(row), 1L, Long::sum);
+    }
+
+    private void removeRow(UUID couponId) {
+        RowKey key = keyByCoupon.remove(couponId);
+        if (key == null) return;
+        Row row = rows.remove(key);
+        facetGroups.computeIfPresent(facetGroup(row), (group, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static FacetGroup facetGroup(Row row) {
+        return new FacetGroup(row.platform(), row.category(), row.discountType(), row.free());
+    }
+
+    private void loadActiveCoupons() {
+        CouponBrowseFilter activeOnly = new CouponBrowseFilter(true, null, null, null, false, null);
+        BrowseCursor cursor = null;
+        int loaded = 0;
+        try {
+            while (true) {
+                List<CouponCardDto> batch = couponRepository.findCardPage(activeOnly, cursor, LOAD_BATCH_SIZE);
+                if (batch.isEmpty()) break;
+                List<Row> encoded = batch.stream().map(this::toRow).toList();
+                lock.writeLock().lock();
+                try {
+                    for (Row row : encoded) {
+                        // Change events that raced with the load already hold the newer state
+                        if (!changedDuringLoad.contains(row.key().id())) {
+                            removeRow(row.key().id());
+                            addRow(row);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                loaded += batch.size();
+                CouponCardDto last = batch.get(batch.size() - 1);
+                cursor = BrowseCursor.of(last.createdAt(), last.id());
+            }
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad.clear();
+                version++;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Coupon browse snapshot loaded with {} active coupons", loaded);
+        } catch (RuntimeException e) {
+            logger.error("Failed to load coupon browse snapshot after {} coupons; browse stays on the database",
+                    loaded, e);
+        }
+    }
+
+    private Row toRow(CouponCardDto card) {
+        try {
+            return new Row(
+                    new RowKey(card.createdAt(), card.id()),
+                    card.platform(),
+                    card.category(),
+                    card.discountType(),
+                    Objects.requireNonNullElse(card.isFree(), false),
+                    objectMapper.writeValueAsBytes(card)
+            );
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode coupon " + card.id(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] identity) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(identity.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(identity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
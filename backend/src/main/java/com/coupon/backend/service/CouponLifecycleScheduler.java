@@ -0,0 +1,208 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.entity.Coupon;
+import com.coupon.backend.event.CouponChangedEvent;
+import com.coupon.backend.repository.CouponLifecycleRow;
+import com.coupon.backend.repository.CouponRepository;
+import com.coupon.backend.util.TimingWheel;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps isActive in step with each coupon's validity window.
+ * <p>
+ * A coupon becomes active at the start of its validFrom day and inactive at the end
+ * of its validTill day, in the configured zone. Upcoming boundaries sit in a
+ * {@link TimingWheel}; coupons whose boundary falls on the same instant come due
+ * together and are flipped with one bulk UPDATE per batch, so the active set stays
+ * accurate without date predicates on every browse or periodic table sweeps. On
+ * startup, boundaries that passed while the application was down are applied first
+ * and the wheel is rebuilt from the database.
+ */
+@Component
+public class CouponLifecycleScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponLifecycleScheduler.class);
+
+    private static final long WHEEL_TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    private static final long RETRY_DELAY_MS = 30_000;
+
+    enum Boundary { ACTIVATE, EXPIRE }
+
+    private record Scheduled(UUID couponId, Boundary boundary, long deadlineMs) {
+    }
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${coupon.lifecycle.zone:Asia/Kolkata}")
+    private ZoneId zone;
+
+    @Value("${coupon.lifecycle.batch-size:500}")
+    private int batchSize;
+
+    private final TimingWheel<Scheduled> wheel =
+            new TimingWheel<>(WHEEL_TICK_MS, WHEEL_SIZE, System.currentTimeMillis());
+
+    // Boundaries currently in the wheel, so repeated change events do not schedule duplicates
+    private final Set<Scheduled> scheduled = ConcurrentHashMap.newKeySet();
+
+    private volatile Thread worker;
+
+    /**
+     * Sets the state of a coupon about to be listed. One listed as active whose
+     * validFrom is still ahead is parked as pending until that day; one whose validTill
+     * has already passed is stored inactive.
+     */
+    public void applyInitialState(Coupon coupon) {
+        LocalDate today = LocalDate.now(zone);
+        boolean listedActive = Boolean.TRUE.equals(coupon.getIsActive());
+        boolean started = coupon.getValidFrom() == null || !coupon.getValidFrom().isAfter(today);
+        boolean ended = coupon.getValidTill() != null && coupon.getValidTill().isBefore(today);
+        coupon.setIsActive(listedActive && started && !ended);
+        coupon.setPendingActivation(listedActive && !started && !ended);
+    }
+
+    // Runs before the search index and browse snapshot start loading, so they see the caught-up state
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void startOnReady() {
+        LocalDate today = LocalDate.now(zone);
+        int expired = flip(Boundary.EXPIRE, couponRepository.findIdsDueForExpiry(today), today);
+        int activated = flip(Boundary.ACTIVATE, couponRepository.findIdsDueForActivation(today), today);
+
+        List<CouponLifecycleRow> upcoming = couponRepository.findUpcomingLifecycleBoundaries();
+        for (CouponLifecycleRow row : upcoming) {
+            scheduleBoundaries(row.id(), row.validFrom(), row.validTill(), Boolean.TRUE.equals(row.pendingActivation()));
+        }
+        logger.info("Coupon lifecycle caught up ({} expired, {} activated); {} boundaries scheduled",
+                expired, activated, wheel.size());
+
+        Thread thread = new Thread(this::runWheel, "coupon-lifecycle-wheel");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCouponChanged(CouponChangedEvent event) {
+        for (Coupon coupon : couponRepository.findAllById(event.couponIds())) {
+            boolean pending = Boolean.TRUE.equals(coupon.getPendingActivation());
+            if (pending || Boolean.TRUE.equals(coupon.getIsActive())) {
+                scheduleBoundaries(coupon.getId(), coupon.getValidFrom(), coupon.getValidTill(), pending);
+            }
+        }
+    }
+
+    private void scheduleBoundaries(UUID couponId, LocalDate validFrom, LocalDate validTill, boolean pending) {
+        if (pending && validFrom != null) {
+            schedule(new Scheduled(couponId, Boundary.ACTIVATE, startOf(validFrom)));
+        }
+        if (validTill != null) {
+            schedule(new Scheduled(couponId, Boundary.EXPIRE, startOf(validTill.plusDays(1))));
+        }
+    }
+
+    private void schedule(Scheduled boundary) {
+        if (!scheduled.add(boundary)) return;
+        if (!wheel.add(boundary, boundary.deadlineMs())) {
+            // Already due, e.g. the day rolled over between listing and scheduling. Still
+            // left to the wheel thread, on the next tick: this runs after commit from the
+            // change listener, where an UPDATE would join the finished transaction and
+            // never be committed. The wheel's clock never runs ahead of now, so a deadline
+            // a tick out is always accepted.
+            wheel.add(boundary, System.currentTimeMillis() + WHEEL_TICK_MS);
+        }
+    }
+
+    private void runWheel() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Scheduled> due = wheel.poll(1, TimeUnit.SECONDS);
+                if (!due.isEmpty()) {
+                    fire(due);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void fire(List<Scheduled> due) {
+        List<UUID> activate = new ArrayList<>();
+        List<UUID> expire = new ArrayList<>();
+        for (Scheduled boundary : due) {
+            scheduled.remove(boundary);
+            (boundary.boundary() == Boundary.ACTIVATE ? activate : expire).add(boundary.couponId());
+        }
+        LocalDate today = LocalDate.now(zone);
+        try {
+            int expired = flip(Boundary.EXPIRE, expire, today);
+            int activated = flip(Boundary.ACTIVATE, activate, today);
+            logger.info("Coupon lifecycle: {} expired, {} activated", expired, activated);
+        } catch (RuntimeException e) {
+            // The bulk updates are idempotent, so the whole batch can simply be retried
+            logger.error("Coupon lifecycle batch of {} failed; retrying in {} ms", due.size(), RETRY_DELAY_MS, e);
+            long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+            for (Scheduled boundary : due) {
+                schedule(new Scheduled(boundary.couponId(), boundary.boundary(), retryAt));
+            }
+        }
+    }
+
+    /**
+     * Applies one boundary to the given coupons in chunks of batchSize, one UPDATE per
+     * chunk, and publishes a change event for every chunk that changed rows.
+     */
+    private int flip(Boundary boundary, List<UUID> couponIds, LocalDate today) {
+        int changed = 0;
+        for (int from = 0; from < couponIds.size(); from += batchSize) {
+            List<UUID> chunk = List.copyOf(couponIds.subList(from, Math.min(from + batchSize, couponIds.size())));
+            Instant now = Instant.now();
+            int rows = boundary == Boundary.ACTIVATE
+                    ? couponRepository.activateDue(chunk, today, now)
+                    : couponRepository.expireDue(chunk, today, now);
+            if (rows > 0) {
+                changed += rows;
+                eventPublisher.publishEvent(new CouponChangedEvent(chunk));
+            }
+        }
+        return changed;
+    }
+
+    private long startOf(LocalDate day) {
+        return day.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
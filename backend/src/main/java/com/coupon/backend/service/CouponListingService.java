@@ -3,15 +3,21 @@ package com.coupon.backend.service;
 import com.coupon.backend.dto.CouponRequestDto;
 import com.coupon.backend.dto.CouponResponseDto;
 import com.coupon.backend.entity.Coupon;
+import com.coupon.backend.event.CouponChangedEvent;
 import com.coupon.backend.mapper.CouponMapper;
 import com.coupon.backend.repository.CouponRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 public class CouponListingService {
 
+    private static final int LISTING_REWARD_POINTS = 5;
+
     @Autowired
     private CouponRepository couponRepository;
 
@@ -21,11 +27,25 @@ public class CouponListingService {
     @Autowired
     private RewardPointsService rewardPointsService;
 
+    @Autowired
+    private PointsCreditWriter pointsCreditWriter;
+
+    @Autowired
+    private CouponLifecycleScheduler couponLifecycleScheduler;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Transactional
     public CouponResponseDto save(CouponRequestDto request, String listedByEmail) {
         Coupon entity = couponMapper.toEntity(request);
+        couponLifecycleScheduler.applyInitialState(entity);
+        // The reward rides on the coupon row and is credited in the background
+        entity.setListedBy(rewardPointsService.userIdByEmail(listedByEmail));
+        entity.setListingRewardPending(LISTING_REWARD_POINTS);
         Coupon saved = couponRepository.save(entity);
-        rewardPointsService.addPointsByEmail(listedByEmail, 5);
+        pointsCreditWriter.rewardOwed();
+        eventPublisher.publishEvent(new CouponChangedEvent(List.of(saved.getId())));
         return couponMapper.toResponseDto(saved);
     }
 }
@@ -0,0 +1,74 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.CouponCodeDto;
+import com.coupon.backend.event.CouponChangedEvent;
+import com.coupon.backend.exception.CouponUnavailableException;
+import com.coupon.backend.repository.CouponRedemptionRow;
+import com.coupon.backend.repository.CouponRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Reveals coupon codes in exchange for reward points. Each user pays for a coupon's
+ * code once; revealing it again returns the same code at no cost.
+ * <p>
+ * After taking the user's debit lock, the ledger debit, the sale count and the code
+ * lookup are a single statement, so a reveal cannot race with other reveals by the
+ * same user or of the same coupon. Stock held by reservations is accounted for by
+ * CouponReservationService, which goes through here for every sale.
+ */
+@Service
+public class CouponRedemptionService {
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private RewardPointsService rewardPointsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${coupon.view-code.cost:5}")
+    private int viewCodeCost;
+
+    @Transactional
+    public CouponCodeDto revealCode(UUID couponId, String email) {
+        UUID userId = rewardPointsService.lockForDebit(email);
+        CouponRedemptionRow row = couponRepository.redeemCode(couponId, userId, viewCodeCost, Instant.now());
+        if (row.code() == null) {
+            if (!row.couponFound()) {
+                throw new RuntimeException("Coupon not found");
+            }
+            // Throwing rolls back a debit whose sale lost the race for the last unit
+            if (!row.couponAvailable() || row.remainingPoints() != null) {
+                throw new CouponUnavailableException("Coupon is no longer available");
+            }
+            throw new RuntimeException("Insufficient reward points");
+        }
+        if (row.alreadyRedeemed()) {
+            return new CouponCodeDto(couponId, row.code(), 0, row.remainingPoints());
+        }
+
+        eventPublisher.publishEvent(new CouponChangedEvent(List.of(couponId)));
+        return new CouponCodeDto(couponId, row.code(), viewCodeCost, row.remainingPoints());
+    }
+
+    /**
+     * The code of a coupon the user has already bought, without charging or selling
+     * anything.
+     */
+    public Optional<CouponCodeDto> findBought(UUID couponId, String email) {
+        return couponRepository.findRedeemedCode(couponId, email)
+                .map(code -> new CouponCodeDto(couponId, code, 0,
+                        rewardPointsService.getPoints(rewardPointsService.userIdByEmail(email))));
+    }
+}
@@ -0,0 +1,313 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.CouponCodeDto;
+import com.coupon.backend.dto.CouponReservationDto;
+import com.coupon.backend.entity.Coupon;
+import com.coupon.backend.event.CouponChangedEvent;
+import com.coupon.backend.exception.CouponUnavailableException;
+import com.coupon.backend.repository.CouponRepository;
+import com.coupon.backend.util.StockCounter;
+import com.coupon.backend.util.TimingWheel;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reserve, confirm and release units of paid coupons, and reveal codes without a
+ * reservation.
+ * <p>
+ * Reserving takes a unit from an in-memory {@link StockCounter} for the coupon and
+ * puts a hold on it for the configured TTL; no database write happens until the hold
+ * is confirmed. Confirming is the purchase itself: {@link CouponRedemptionService}
+ * charges the points, records the buyer, counts the sale with a conditional UPDATE
+ * that only succeeds while soldQuantity is below totalQuantity, and returns the code.
+ * The database stays the authority on stock: the counters only turn buyers away
+ * early, and a counter that admitted too many (another instance sold the last unit,
+ * say) is drained the first time the database refuses a sale. Released holds give
+ * their unit back, and holds that are neither confirmed nor released expire through a
+ * {@link TimingWheel}. A reveal without a hold takes a unit from the same counter, so
+ * it cannot sell a unit someone else holds.
+ * <p>
+ * A counter starts at the coupon's unsold units minus the units this instance has
+ * taken and not yet settled: open holds and purchases in progress. Taking or settling
+ * a unit and building a counter happen under the same map lock, so a rebuilt counter
+ * never misses a unit or counts one twice. A counter is dropped when a change to the
+ * coupon is committed, and when its last unit is settled, so the next reservation
+ * starts from the database again.
+ * <p>
+ * Holds live in this instance's memory and do not survive a restart, which only
+ * returns their units early.
+ */
+@Service
+public class CouponReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponReservationService.class);
+
+    private static final long WHEEL_TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 64;
+
+    private record Hold(UUID id, UUID couponId, String email, long expiresAtMs) {
+    }
+
+    private record HoldKey(UUID couponId, String email) {
+    }
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private CouponRedemptionService couponRedemptionService;
+
+    @Value("${coupon.reservation.hold-ttl-seconds:600}")
+    private long holdTtlSeconds;
+
+    private final Map<UUID, StockCounter> stock = new ConcurrentHashMap<>();
+    // Units taken and not yet settled per coupon, taken off a counter's starting value
+    private final Map<UUID, Integer> heldUnits = new ConcurrentHashMap<>();
+    private final Map<UUID, Hold> holds = new ConcurrentHashMap<>();
+    // One open hold per user and coupon; reserving again returns the existing hold
+    private final Map<HoldKey, UUID> holdsByOwner = new ConcurrentHashMap<>();
+    private final TimingWheel<UUID> expiries =
+            new TimingWheel<>(WHEEL_TICK_MS, WHEEL_SIZE, System.currentTimeMillis());
+
+    private volatile Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        Thread thread = new Thread(this::runExpiries, "coupon-reservation-expiry");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public CouponReservationDto reserve(UUID couponId, String email) {
+        Coupon coupon = couponRepository.findById(couponId)
+                .orElseThrow(() -> new RuntimeException("Coupon not found"));
+        if (!Boolean.TRUE.equals(coupon.getIsActive())) {
+            throw new RuntimeException("Coupon is not active");
+        }
+        if (!Boolean.FALSE.equals(coupon.getIsFree())) {
+            throw new RuntimeException("Free coupons do not need a reservation");
+        }
+
+        HoldKey key = new HoldKey(couponId, email);
+        Hold existing = openHold(key);
+        if (existing != null) {
+            return toDto(existing, "HELD");
+        }
+
+        if (!takeUnit(coupon)) {
+            throw new RuntimeException("Coupon is sold out");
+        }
+        Hold hold = new Hold(UUID.randomUUID(), couponId, email,
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(holdTtlSeconds));
+        holds.put(hold.id(), hold);
+        UUID raced = holdsByOwner.putIfAbsent(key, hold.id());
+        if (raced != null) {
+            // A concurrent request from the same user won; keep its hold instead
+            holds.remove(hold.id());
+            releaseUnit(couponId);
+            Hold winner = holds.get(raced);
+            if (winner == null) {
+                throw new RuntimeException("Reservation was just released, please retry");
+            }
+            return toDto(winner, "HELD");
+        }
+        // The wheel may hand entries out up to a tick early; a tick later is never too soon
+        if (!expiries.add(hold.id(), hold.expiresAtMs() + WHEEL_TICK_MS)) {
+            expire(hold.id());
+        }
+        return toDto(hold, "HELD");
+    }
+
+    /**
+     * Buys the held unit and returns its code. Fails when the hold has expired, the
+     * points do not cover the reveal or the database has no unit left, in which case
+     * the hold is gone either way.
+     */
+    public CouponCodeDto confirm(UUID reservationId, String email) {
+        Hold hold = takeHold(reservationId, email);
+        if (hold.expiresAtMs() <= System.currentTimeMillis()) {
+            releaseUnit(hold.couponId());
+            throw new RuntimeException("Reservation has expired");
+        }
+        return buyUnit(hold.couponId(), email);
+    }
+
+    public CouponReservationDto release(UUID reservationId, String email) {
+        Hold hold = takeHold(reservationId, email);
+        releaseUnit(hold.couponId());
+        return toDto(hold, "RELEASED");
+    }
+
+    /**
+     * Reveals the code of a coupon: confirms the caller's open hold on it if there is
+     * one, and otherwise buys a unit no hold has claimed. Free coupons are not
+     * stock-limited, and a coupon the caller already bought is revealed again at no
+     * cost even when it has sold out since.
+     */
+    public CouponCodeDto reveal(UUID couponId, String email) {
+        Hold hold = openHold(new HoldKey(couponId, email));
+        if (hold != null && take(hold)) {
+            return buyUnit(couponId, email);
+        }
+
+        Coupon coupon = couponRepository.findById(couponId)
+                .orElseThrow(() -> new RuntimeException("Coupon not found"));
+        if (!Boolean.FALSE.equals(coupon.getIsFree())) {
+            return couponRedemptionService.revealCode(couponId, email);
+        }
+        if (!takeUnit(coupon)) {
+            return couponRedemptionService.findBought(couponId, email)
+                    .orElseThrow(() -> new RuntimeException("Coupon is sold out"));
+        }
+        return buyUnit(couponId, email);
+    }
+
+    /**
+     * Refreshes counters from the database once a change to their coupons (an edit,
+     * a sale here or elsewhere) is committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCouponChanged(CouponChangedEvent event) {
+        event.couponIds().forEach(stock::remove);
+    }
+
+    // Redeems a unit already taken from the coupon's counter
+    private CouponCodeDto buyUnit(UUID couponId, String email) {
+        CouponCodeDto code;
+        try {
+            code = couponRedemptionService.revealCode(couponId, email);
+        } catch (CouponUnavailableException e) {
+            settleUnit(couponId, StockCounter::drain);
+            throw e;
+        } catch (RuntimeException e) {
+            releaseUnit(couponId);
+            throw e;
+        }
+        if (code.pointsDeducted() == 0) {
+            // Bought before, so no unit was sold
+            releaseUnit(couponId);
+        } else {
+            settleUnit(couponId, counter -> { });
+        }
+        return code;
+    }
+
+    private Hold openHold(HoldKey key) {
+        UUID id = holdsByOwner.get(key);
+        Hold hold = id != null ? holds.get(id) : null;
+        if (hold == null) return null;
+        if (hold.expiresAtMs() <= System.currentTimeMillis()) {
+            // Lapsed but not yet reached by the expiry thread
+            expire(hold.id());
+            return null;
+        }
+        return hold;
+    }
+
+    private Hold takeHold(UUID reservationId, String email) {
+        Hold hold = holds.get(reservationId);
+        if (hold == null || !hold.email().equals(email) || !take(hold)) {
+            throw new RuntimeException("Reservation not found");
+        }
+        return hold;
+    }
+
+    /**
+     * Removes the hold so that exactly one of confirm, release, reveal and expiry acts
+     * on it; that one settles the hold's unit. Returns false when another one already did.
+     */
+    private boolean take(Hold hold) {
+        if (!holds.remove(hold.id(), hold)) return false;
+        holdsByOwner.remove(new HoldKey(hold.couponId(), hold.email()), hold.id());
+        return true;
+    }
+
+    private void runExpiries() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<UUID> due = expiries.poll(1, TimeUnit.SECONDS);
+                due.forEach(this::expire);
+                if (!due.isEmpty()) {
+                    logger.debug("Checked {} coupon reservation holds for expiry", due.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void expire(UUID reservationId) {
+        Hold hold = holds.get(reservationId);
+        // Confirmed and released holds are already gone
+        if (hold == null || !take(hold)) return;
+        releaseUnit(hold.couponId());
+    }
+
+    // Takes a unit from the coupon's counter, building the counter if there is none
+    private boolean takeUnit(Coupon coupon) {
+        boolean[] taken = new boolean[1];
+        stock.compute(coupon.getId(), (id, counter) -> {
+            StockCounter current = counter != null ? counter
+                    : new StockCounter(available(coupon) - heldUnits.getOrDefault(id, 0));
+            if (current.tryAcquire()) {
+                heldUnits.merge(id, 1, Integer::sum);
+                taken[0] = true;
+            }
+            return current;
+        });
+        return taken[0];
+    }
+
+    private void releaseUnit(UUID couponId) {
+        settleUnit(couponId, StockCounter::release);
+    }
+
+    /**
+     * Settles a unit taken with {@link #takeUnit}. A counter rebuilt since the unit was
+     * taken started without it, so giving the unit back to that counter is right too.
+     */
+    private void settleUnit(UUID couponId, Consumer<StockCounter> settle) {
+        stock.compute(couponId, (id, counter) -> {
+            if (counter != null) settle.accept(counter);
+            if (heldUnits.computeIfPresent(id, (key, count) -> count > 1 ? count - 1 : null) == null) {
+                // No unit left to account for; the next reservation starts from the database
+                return null;
+            }
+            return counter;
+        });
+    }
+
+    private static int available(Coupon coupon) {
+        int total = coupon.getTotalQuantity() != null ? coupon.getTotalQuantity() : 1;
+        int sold = coupon.getSoldQuantity() != null ? coupon.getSoldQuantity() : 0;
+        return total - sold;
+    }
+
+    private static CouponReservationDto toDto(Hold hold, String status) {
+        return new CouponReservationDto(hold.id(), hold.couponId(), status, Instant.ofEpochMilli(hold.expiresAtMs()));
+    }
+}
@@ -0,0 +1,175 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.entity.Coupon;
+import com.coupon.backend.enums.DiscountType;
+import com.coupon.backend.event.CouponChangedEvent;
+import com.coupon.backend.repository.CouponRepository;
+import com.coupon.backend.repository.CouponSavingsRow;
+import com.coupon.backend.util.CouponSavingsTable;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a {@link CouponSavingsTable} of the active catalog for best-coupon queries.
+ * <p>
+ * The current discount terms of every active coupon are held in a map that change
+ * events update in place. The columnar table is immutable and rebuilt from that map;
+ * rebuilds are debounced so a burst of changes (a lifecycle batch, say) costs one
+ * rebuild. Queries always read the latest complete table.
+ */
+@Component
+public class CouponSavingsIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponSavingsIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 5000;
+    private static final BigDecimal MAX_PAISE = BigDecimal.valueOf(Long.MAX_VALUE / 2);
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Value("${coupon.best.rebuild-delay-ms:500}")
+    private long rebuildDelayMs;
+
+    private final Map<UUID, CouponSavingsTable.Offer> offers = new ConcurrentHashMap<>();
+    private final Set<UUID> changedDuringLoad = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "coupon-savings-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile CouponSavingsTable table = CouponSavingsTable.empty();
+    private volatile boolean loaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuilder.execute(this::loadActiveCoupons);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCouponChanged(CouponChangedEvent event) {
+        Set<UUID> missing = new HashSet<>(event.couponIds());
+        for (Coupon coupon : couponRepository.findAllById(event.couponIds())) {
+            missing.remove(coupon.getId());
+            CouponSavingsTable.Offer offer = Boolean.TRUE.equals(coupon.getIsActive())
+                    ? toOffer(coupon.getId(), coupon.getPlatform(), coupon.getDiscountType(), coupon.getDiscountValue(),
+                    coupon.getMinOrderValue(), coupon.getMaxDiscountValue())
+                    : null;
+            if (offer != null) {
+                offers.put(coupon.getId(), offer);
+            } else {
+                offers.remove(coupon.getId());
+            }
+        }
+        missing.forEach(offers::remove);
+        if (!loaded) {
+            changedDuringLoad.addAll(event.couponIds());
+        }
+        scheduleRebuild();
+    }
+
+    /**
+     * Top k coupons by saving on the order value; a null platform searches all platforms.
+     */
+    public List<CouponSavingsTable.Saving> best(long orderPaise, String platform, int k) {
+        return table.top(orderPaise, platform, k);
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    private void loadActiveCoupons() {
+        UUID after = new UUID(0, 0);
+        int count = 0;
+        try {
+            while (true) {
+                List<CouponSavingsRow> batch = couponRepository.findActiveSavingsRows(after, Limit.of(LOAD_BATCH_SIZE));
+                if (batch.isEmpty()) break;
+                for (CouponSavingsRow row : batch) {
+                    // Change events that raced with the load already hold the newer state
+                    if (changedDuringLoad.contains(row.id())) continue;
+                    CouponSavingsTable.Offer offer = toOffer(row.id(), row.platform(), row.discountType(),
+                            row.discountValue(), row.minOrderValue(), row.maxDiscountValue());
+                    if (offer != null) {
+                        offers.put(row.id(), offer);
+                    }
+                }
+                count += batch.size();
+                after = batch.get(batch.size() - 1).id();
+            }
+            loaded = true;
+            changedDuringLoad.clear();
+            rebuild();
+            logger.info("Coupon savings index loaded with {} offers from {} active coupons", table.size(), count);
+        } catch (RuntimeException e) {
+            logger.error("Failed to load coupon savings index after {} coupons", count, e);
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (loaded && rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.schedule(() -> {
+                rebuildScheduled.set(false);
+                rebuild();
+            }, rebuildDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuild() {
+        table = CouponSavingsTable.build(List.copyOf(offers.values()));
+    }
+
+    /**
+     * Converts discount terms to a table offer, or null when the coupon gives no
+     * computable saving.
+     */
+    private static CouponSavingsTable.Offer toOffer(UUID id, String platform, DiscountType type, BigDecimal value,
+                                                    BigDecimal minOrderValue, BigDecimal maxDiscountValue) {
+        if (type == null || value == null || value.signum() <= 0) return null;
+        long minOrder = paise(minOrderValue, 0);
+        // A zero or negative maximum is how "no cap" comes through from listings
+        long cap = maxDiscountValue != null && maxDiscountValue.signum() > 0
+                ? paise(maxDiscountValue, Long.MAX_VALUE)
+                : Long.MAX_VALUE;
+        if (type == DiscountType.FLAT) {
+            return new CouponSavingsTable.Offer(id, platform, minOrder, paise(value, 0), 0, cap);
+        }
+        int basisPoints = value.movePointRight(2).setScale(0, RoundingMode.HALF_UP).min(BigDecimal.valueOf(10_000)).intValue();
+        return new CouponSavingsTable.Offer(id, platform, minOrder, 0, basisPoints, cap);
+    }
+
+    private static long paise(BigDecimal amount, long whenNull) {
+        if (amount == null) return whenNull;
+        BigDecimal paise = amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP);
+        return paise.compareTo(MAX_PAISE) > 0 ? Long.MAX_VALUE : paise.longValue();
+    }
+}
@@ -0,0 +1,98 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.BestCouponsResponseDto;
+import com.coupon.backend.dto.CouponSavingDto;
+import com.coupon.backend.entity.Coupon;
+import com.coupon.backend.enums.DiscountType;
+import com.coupon.backend.mapper.CouponMapper;
+import com.coupon.backend.repository.CouponRepository;
+import com.coupon.backend.util.CouponSavingsTable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class CouponSavingsService {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Autowired
+    private CouponSavingsIndex couponSavingsIndex;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private CouponMapper couponMapper;
+
+    @Value("${coupon.best.default-results:10}")
+    private int defaultResults;
+
+    @Value("${coupon.best.max-results:50}")
+    private int maxResults;
+
+    /**
+     * Returns the active coupons that save the most on an order of the given value,
+     * optionally on one platform. Ranking runs on the in-memory savings index; the
+     * winners are then loaded by id and their savings recomputed exactly.
+     */
+    public BestCouponsResponseDto best(BigDecimal orderValue, String platform, Integer limit) {
+        if (orderValue == null || orderValue.signum() <= 0) {
+            throw new RuntimeException("orderValue must be greater than zero");
+        }
+        int resultCount = limit == null ? defaultResults : Math.max(1, Math.min(limit, maxResults));
+        String normalizedPlatform = CouponMapper.normalizeFacet(platform);
+        BigDecimal order = orderValue.setScale(2, RoundingMode.HALF_UP);
+        long orderPaise = order.movePointRight(2).min(BigDecimal.valueOf(CouponSavingsTable.MAX_ORDER_PAISE)).longValue();
+
+        List<CouponSavingsTable.Saving> ranked = couponSavingsIndex.best(orderPaise, normalizedPlatform, resultCount);
+        if (ranked.isEmpty()) {
+            return new BestCouponsResponseDto(order, normalizedPlatform, List.of());
+        }
+
+        List<UUID> ids = ranked.stream().map(CouponSavingsTable.Saving::couponId).collect(Collectors.toList());
+        Map<UUID, Coupon> byId = couponRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Coupon::getId, Function.identity()));
+
+        List<CouponSavingDto> items = new ArrayList<>(ranked.size());
+        for (UUID id : ids) {
+            Coupon coupon = byId.get(id);
+            // The index is rebuilt shortly after changes; re-check what may have moved since
+            if (coupon == null || !Boolean.TRUE.equals(coupon.getIsActive())) continue;
+            if (coupon.getMinOrderValue() != null && coupon.getMinOrderValue().compareTo(order) > 0) continue;
+            BigDecimal saving = saving(coupon, order);
+            if (saving.signum() > 0) {
+                items.add(new CouponSavingDto(couponMapper.toCardDto(coupon), saving, order.subtract(saving)));
+            }
+        }
+        items.sort(Comparator.comparing(CouponSavingDto::saving).reversed());
+        return new BestCouponsResponseDto(order, normalizedPlatform, items);
+    }
+
+    /**
+     * Saving on the order: a percentage of the order capped at maxDiscountValue, or the
+     * flat amount, never more than the order itself.
+     */
+    private static BigDecimal saving(Coupon coupon, BigDecimal order) {
+        BigDecimal value = coupon.getDiscountValue();
+        if (value == null || coupon.getDiscountType() == null) return BigDecimal.ZERO;
+        BigDecimal saving = coupon.getDiscountType() == DiscountType.PERCENTAGE
+                ? order.multiply(value.min(HUNDRED)).divide(HUNDRED, 2, RoundingMode.HALF_UP)
+                : value.setScale(2, RoundingMode.HALF_UP);
+        BigDecimal cap = coupon.getMaxDiscountValue();
+        if (cap != null && cap.signum() > 0) {
+            saving = saving.min(cap);
+        }
+        return saving.min(order);
+    }
+}
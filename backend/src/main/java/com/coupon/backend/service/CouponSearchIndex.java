@@ -0,0 +1,399 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.CouponBrowseFilter;
+import com.coupon.backend.entity.Coupon;
+import com.coupon.backend.event.CouponChangedEvent;
+import com.coupon.backend.repository.CouponRepository;
+import com.coupon.backend.util.BrowseCursor;
+import com.coupon.backend.util.SearchTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over the active catalog with BM25 ranking.
+ * <p>
+ * Title, platform, category, description and terms are indexed with per-field weights
+ * folded into one weighted term frequency per document. The last query token is also
+ * matched as a prefix so results show up while the user is still typing. Updates
+ * arrive through {@link CouponChangedEvent}; replaced or deactivated documents are
+ * tombstoned and physically dropped by an occasional compaction.
+ */
+@Component
+public class CouponSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CouponSearchIndex.class);
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float PLATFORM_WEIGHT = 2f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float TERMS_WEIGHT = 0.5f;
+
+    private static final float PREFIX_MATCH_FACTOR = 0.7f;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int MIN_DELETED_FOR_COMPACTION = 10_000;
+
+    public record SearchHit(UUID couponId, float score) {
+    }
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Everything below is guarded by lock
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<UUID, Integer> docByCoupon = new HashMap<>();
+    private UUID[] couponByDoc = new UUID[1024];
+    private float[] docLength = new float[1024];
+    private final BitSet deleted = new BitSet();
+    private int docCount;
+    private int deletedCount;
+    private double liveLength;
+
+    // Score accumulators are sized to the doc id space, so they are pooled rather
+    // than allocated per query; the pool size also bounds concurrent searches.
+    private final BlockingQueue<Scratch> scratchPool;
+
+    public CouponSearchIndex() {
+        int slots = Math.max(2, Runtime.getRuntime().availableProcessors());
+        scratchPool = new ArrayBlockingQueue<>(slots);
+        for (int i = 0; i < slots; i++) {
+            scratchPool.add(new Scratch());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Thread loader = new Thread(this::loadActiveCoupons, "coupon-search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCouponChanged(CouponChangedEvent event) {
+        List<Coupon> coupons = couponRepository.findAllById(event.couponIds());
+        Set<UUID> missing = new HashSet<>(event.couponIds());
+        lock.writeLock().lock();
+        try {
+            for (Coupon coupon : coupons) {
+                missing.remove(coupon.getId());
+                removeDocument(coupon.getId());
+                if (Boolean.TRUE.equals(coupon.getIsActive())) {
+                    addDocument(coupon);
+                }
+            }
+            missing.forEach(this::removeDocument);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        List<String> tokens = SearchTokenizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+
+        Scratch scratch = borrowScratch();
+        lock.readLock().lock();
+        try {
+            int liveDocs = docByCoupon.size();
+            if (liveDocs == 0) return List.of();
+            scratch.ensureCapacity(docCount);
+            float avgLength = (float) Math.max(liveLength / liveDocs, 1.0);
+
+            for (int t = 0; t < tokens.size(); t++) {
+                String token = tokens.get(t);
+                Postings exact = postings.get(token);
+                if (exact != null) {
+                    accumulate(exact, 1f, liveDocs, avgLength, scratch);
+                }
+                if (t == tokens.size() - 1) {
+                    int expansions = 0;
+                    for (Postings prefixed : postings.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                        if (++expansions > MAX_PREFIX_EXPANSIONS) break;
+                        accumulate(prefixed, PREFIX_MATCH_FACTOR, liveDocs, avgLength, scratch);
+                    }
+                }
+            }
+            return scratch.topK(limit, couponByDoc);
+        } finally {
+            lock.readLock().unlock();
+            scratch.reset();
+            scratchPool.offer(scratch);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByCoupon.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void loadActiveCoupons() {
+        CouponBrowseFilter activeOnly = new CouponBrowseFilter(true, null, null, null, false, null);
+        BrowseCursor cursor = null;
+        int loaded = 0;
+        try {
+            while (true) {
+                List<Coupon> batch = couponRepository.findPage(activeOnly, cursor, LOAD_BATCH_SIZE);
+                if (batch.isEmpty()) break;
+                lock.writeLock().lock();
+                try {
+                    for (Coupon coupon : batch) {
+                        // Change events that raced with the load already hold the newer state
+                        if (!docByCoupon.containsKey(coupon.getId())) {
+                            addDocument(coupon);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                loaded += batch.size();
+                Coupon last = batch.get(batch.size() - 1);
+                cursor = BrowseCursor.of(last.getCreatedAt(), last.getId());
+            }
+            logger.info("Coupon search index loaded with {} active coupons", loaded);
+        } catch (RuntimeException e) {
+            logger.error("Failed to load coupon search index after {} coupons", loaded, e);
+        }
+    }
+
+    private void accumulate(Postings list, float weight, int liveDocs, float avgLength, Scratch scratch) {
+        // Tombstoned documents still count towards df until compaction; clamp so a
+        // term that is common among deleted documents never scores negatively.
+        double idf = Math.log(1 + (liveDocs - list.size + 0.5) / (list.size + 0.5));
+        float termWeight = weight * (float) Math.max(idf, 0.01);
+        for (int i = 0; i < list.size; i++) {
+            int doc = list.docs[i];
+            if (deleted.get(doc)) continue;
+            float tf = list.freqs[i];
+            float norm = K1 * (1 - B + B * docLength[doc] / avgLength);
+            scratch.add(doc, termWeight * tf * (K1 + 1) / (tf + norm));
+        }
+    }
+
+    private void addDocument(Coupon coupon) {
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = 0;
+        length += addField(frequencies, coupon.getTitle(), TITLE_WEIGHT);
+        length += addField(frequencies, coupon.getPlatform(), PLATFORM_WEIGHT);
+        length += addField(frequencies, coupon.getCategory(), CATEGORY_WEIGHT);
+        length += addField(frequencies, coupon.getDescription(), DESCRIPTION_WEIGHT);
+        length += addField(frequencies, coupon.getTerms(), TERMS_WEIGHT);
+
+        int doc = docCount++;
+        if (doc == couponByDoc.length) {
+            couponByDoc = Arrays.copyOf(couponByDoc, doc * 2);
+            docLength = Arrays.copyOf(docLength, doc * 2);
+        }
+        couponByDoc[doc] = coupon.getId();
+        docLength[doc] = length;
+        docByCoupon.put(coupon.getId(), doc);
+        liveLength += length;
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, k -> new Postings()).add(doc, tf));
+    }
+
+    private static float addField(Map<String, Float> frequencies, String text, float weight) {
+        List<String> tokens = SearchTokenizer.tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private void removeDocument(UUID couponId) {
+        Integer doc = docByCoupon.remove(couponId);
+        if (doc == null) return;
+        deleted.set(doc);
+        deletedCount++;
+        liveLength -= docLength[doc];
+    }
+
+    /**
+     * Rewrites all postings without tombstoned documents once they outnumber half
+     * of the live ones, renumbering doc ids densely.
+     */
+    private void compactIfNeeded() {
+        if (deletedCount < MIN_DELETED_FOR_COMPACTION || deletedCount < docByCoupon.size() / 2) return;
+
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            remap[doc] = deleted.get(doc) ? -1 : next++;
+        }
+        UUID[] compactedCoupons = new UUID[Math.max(1024, next * 2)];
+        float[] compactedLengths = new float[compactedCoupons.length];
+        for (int doc = 0; doc < docCount; doc++) {
+            if (remap[doc] >= 0) {
+                compactedCoupons[remap[doc]] = couponByDoc[doc];
+                compactedLengths[remap[doc]] = docLength[doc];
+                docByCoupon.put(couponByDoc[doc], remap[doc]);
+            }
+        }
+        Iterator<Postings> it = postings.values().iterator();
+        while (it.hasNext()) {
+            Postings list = it.next();
+            list.retain(remap);
+            if (list.size == 0) it.remove();
+        }
+        couponByDoc = compactedCoupons;
+        docLength = compactedLengths;
+        docCount = next;
+        deleted.clear();
+        deletedCount = 0;
+        logger.info("Compacted coupon search index to {} documents", next);
+    }
+
+    private Scratch borrowScratch() {
+        try {
+            return scratchPool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Search interrupted");
+        }
+    }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] freqs = new float[4];
+        int size;
+
+        void add(int doc, float tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = tf;
+            size++;
+        }
+
+        void retain(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    freqs[kept] = freqs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    /**
+     * Per-query score accumulator indexed by doc id, plus the list of touched docs so
+     * resetting and ranking cost is proportional to the matches, not the index size.
+     */
+    private static final class Scratch {
+        float[] scores = new float[0];
+        int[] touched = new int[64];
+        int touchedCount;
+
+        void ensureCapacity(int docs) {
+            if (scores.length < docs) {
+                scores = new float[Math.max(docs, scores.length * 2)];
+            }
+        }
+
+        void add(int doc, float score) {
+            if (scores[doc] == 0f) {
+                if (touchedCount == touched.length) {
+                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                }
+                touched[touchedCount++] = doc;
+            }
+            scores[doc] += score;
+        }
+
+        List<SearchHit> topK(int k, UUID[] couponByDoc) {
+            // Min-heap of the best k doc ids seen so far, keyed by score
+            int[] heap = new int[Math.min(k, touchedCount)];
+            int heapSize = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                if (heapSize < heap.length) {
+                    heap[heapSize] = doc;
+                    siftUp(heap, heapSize++);
+                } else if (heap.length > 0 && scores[doc] > scores[heap[0]]) {
+                    heap[0] = doc;
+                    siftDown(heap, heapSize);
+                }
+            }
+            List<SearchHit> hits = new ArrayList<>(heapSize);
+            while (heapSize > 0) {
+                int doc = heap[0];
+                hits.add(new SearchHit(couponByDoc[doc], scores[doc]));
+                heap[0] = heap[--heapSize];
+                siftDown(heap, heapSize);
+            }
+            Collections.reverse(hits);
+            return hits;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0f;
+            }
+            touchedCount = 0;
+        }
+
+        private void siftUp(int[] heap, int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (scores[heap[index]] >= scores[heap[parent]]) break;
+                swap(heap, index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int size) {
+            int index = 0;
+            while (true) {
+                int left = 2 * index + 1;
+                if (left >= size) break;
+                int right = left + 1;
+                int smallest = right < size && scores[heap[right]] < scores[heap[left]] ? right : left;
+                if (scores[heap[index]] <= scores[heap[smallest]]) break;
+                swap(heap, index, smallest);
+                index = smallest;
+            }
+        }
+
+        private static void swap(int[] heap, int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
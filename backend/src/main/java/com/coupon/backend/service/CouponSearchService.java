@@ -0,0 +1,61 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.CouponResponseDto;
+import com.coupon.backend.dto.CouponSearchResponseDto;
+import com.coupon.backend.entity.Coupon;
+import com.coupon.backend.mapper.CouponMapper;
+import com.coupon.backend.repository.CouponRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class CouponSearchService {
+
+    @Autowired
+    private CouponSearchIndex couponSearchIndex;
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private CouponMapper couponMapper;
+
+    @Value("${coupon.search.default-results:20}")
+    private int defaultResults;
+
+    @Value("${coupon.search.max-results:50}")
+    private int maxResults;
+
+    /**
+     * Ranks active coupons against the query using the in-memory index, then loads
+     * only the winning rows by primary key.
+     */
+    public CouponSearchResponseDto search(String query, Integer limit) {
+        int resultCount = limit == null ? defaultResults : Math.max(1, Math.min(limit, maxResults));
+        List<CouponSearchIndex.SearchHit> hits = couponSearchIndex.search(query, resultCount);
+        if (hits.isEmpty()) {
+            return new CouponSearchResponseDto(query, List.of());
+        }
+
+        List<UUID> ids = hits.stream().map(CouponSearchIndex.SearchHit::couponId).collect(Collectors.toList());
+        Map<UUID, Coupon> byId = couponRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Coupon::getId, Function.identity()));
+
+        List<CouponResponseDto> items = new ArrayList<>(hits.size());
+        for (UUID id : ids) {
+            Coupon coupon = byId.get(id);
+            if (coupon != null && Boolean.TRUE.equals(coupon.getIsActive())) {
+                items.add(couponMapper.toResponseDto(coupon));
+            }
+        }
+        return new CouponSearchResponseDto(query, items);
+    }
+}
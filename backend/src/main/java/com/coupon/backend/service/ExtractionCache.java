@@ -0,0 +1,336 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.util.BoundedLruCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Content-addressed cache of extraction results, so text pasted again (the same SMS or
+ * email blast) is not sent to the model again.
+ * <p>
+ * The key is the SHA-256 of the model name, the instructions version and the text
+ * after whitespace and Unicode normalization; changing the model or the instructions
+ * therefore misses every old entry rather than serving answers to another question.
+ * <p>
+ * Two tiers: a bounded LRU of parsed results in memory, and an append-only log on
+ * disk (one JSON record per line) that survives restarts. Only the disk index (key to
+ * file offset) is kept in memory for the second tier; records are read back on a
+ * memory miss. Entries older than ttl are ignored. When the log grows past
+ * diskMaxBytes it is compacted: the newest live records, up to half the limit, are
+ * copied to a new file that replaces the old one. A record cut short by a crash is
+ * truncated away on the next start; an unreadable record with readable ones after it
+ * is passed over and left for the next compaction to drop.
+ */
+@Component
+public class ExtractionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionCache.class);
+
+    private static final String LOG_FILE = "extractions.log";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${extraction.cache.dir:data/extraction-cache}")
+    private Path dir;
+
+    @Value("${extraction.cache.memory-entries:2000}")
+    private int memoryEntries;
+
+    @Value("${extraction.cache.disk-max-bytes:67108864}")
+    private long diskMaxBytes;
+
+    @Value("${extraction.cache.ttl:72h}")
+    private Duration ttl;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Location> index = new HashMap<>();
+    private BoundedLruCache<String, Entry> memory;
+    private FileChannel channel;
+    private long fileSize;
+
+    private Counter memoryHits;
+    private Counter diskHits;
+    private Counter misses;
+
+    @PostConstruct
+    public void open() throws IOException {
+        memory = new BoundedLruCache<>(memoryEntries);
+        Files.createDirectories(dir);
+        channel = FileChannel.open(dir.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+        logger.info("Extraction cache loaded {} entries ({} bytes) from {}", index.size(), fileSize, dir);
+
+        memoryHits = Counter.builder("coupon.extraction.cache.requests").tag("result", "memory_hit").register(meterRegistry);
+        diskHits = Counter.builder("coupon.extraction.cache.requests").tag("result", "disk_hit").register(meterRegistry);
+        misses = Counter.builder("coupon.extraction.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("coupon.extraction.cache.entries", this, c -> c.memory.size()).tag("tier", "memory").register(meterRegistry);
+        Gauge.builder("coupon.extraction.cache.entries", this, ExtractionCache::diskEntries).tag("tier", "disk").register(meterRegistry);
+        Gauge.builder("coupon.extraction.cache.disk.bytes", this, ExtractionCache::diskBytes).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.force(false);
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The cache key for a text extracted with the given model and instructions.
+     */
+    public String keyFor(String modelName, String instructionsVersion, String text) {
+        String normalized = normalize(text);
+        return sha256(modelName + '\n' + instructionsVersion + '\n' + normalized);
+    }
+
+    public Optional<CouponRequestDto> get(String key) {
+        long now = System.currentTimeMillis();
+        Entry entry = memory.get(key);
+        if (entry != null && !expired(entry.writtenAtMs(), now)) {
+            memoryHits.increment();
+            return Optional.of(entry.value());
+        }
+        Optional<CachedRecord> cached = readFromDisk(key, now);
+        if (cached.isEmpty()) {
+            misses.increment();
+            return Optional.empty();
+        }
+        memory.put(key, new Entry(cached.get().value(), cached.get().writtenAt()));
+        diskHits.increment();
+        return Optional.of(cached.get().value());
+    }
+
+    public void put(String key, CouponRequestDto value) {
+        long now = System.currentTimeMillis();
+        memory.put(key, new Entry(value, now));
+        try {
+            byte[] line = toLine(new CachedRecord(key, now, value));
+            lock.writeLock().lock();
+            try {
+                channel.write(ByteBuffer.wrap(line), fileSize);
+                index.put(key, new Location(fileSize, line.length, now));
+                fileSize += line.length;
+                if (fileSize > diskMaxBytes) {
+                    compact(now);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            // The memory tier still has it; the disk tier is best effort
+            logger.warn("Failed to write extraction cache entry", e);
+        }
+    }
+
+    private Optional<CachedRecord> readFromDisk(String key, long now) {
+        lock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            if (location == null || expired(location.writtenAtMs(), now)) {
+                return Optional.empty();
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(location.length());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, location.offset() + buffer.position()) < 0) break;
+            }
+            CachedRecord cached = objectMapper.readValue(buffer.array(), CachedRecord.class);
+            return key.equals(cached.key()) ? Optional.of(cached) : Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Failed to read extraction cache entry", e);
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        long now = System.currentTimeMillis();
+        byte[] bytes = Files.readAllBytes(dir.resolve(LOG_FILE));
+        int start = 0;
+        // Just past the last record that could be read
+        int end = 0;
+        int unreadable = 0;
+        int skipped = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') continue;
+            try {
+                JsonNode node = objectMapper.readTree(bytes, start, i - start);
+                String key = node.path("key").asText(null);
+                long writtenAt = node.path("writtenAt").asLong();
+                if (key != null && !expired(writtenAt, now)) {
+                    index.put(key, new Location(start, i + 1 - start, writtenAt));
+                }
+                skipped += unreadable;
+                unreadable = 0;
+                end = i + 1;
+            } catch (IOException e) {
+                unreadable++;
+            }
+            start = i + 1;
+        }
+        if (skipped > 0) {
+            logger.warn("Skipped {} unreadable extraction cache records", skipped);
+        }
+        if (end < bytes.length) {
+            // Records cut short by a crash; drop them and append after the last good one
+            logger.warn("Truncating {} bytes of incomplete extraction cache records", bytes.length - end);
+            channel.truncate(end);
+        }
+        fileSize = end;
+    }
+
+    private void compact(long now) throws IOException {
+        List<Map.Entry<String, Location>> live = new ArrayList<>();
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            if (!expired(entry.getValue().writtenAtMs(), now)) live.add(entry);
+        }
+        live.sort(Comparator.comparingLong((Map.Entry<String, Location> e) -> e.getValue().writtenAtMs()).reversed());
+
+        List<Map.Entry<String, Location>> kept = new ArrayList<>();
+        long keptBytes = 0;
+        for (Map.Entry<String, Location> entry : live) {
+            if (keptBytes + entry.getValue().length() > diskMaxBytes / 2) break;
+            kept.add(entry);
+            keptBytes += entry.getValue().length();
+        }
+        kept.sort(Comparator.comparingLong(e -> e.getValue().writtenAtMs()));
+
+        Path compacted = dir.resolve(LOG_FILE + ".compact");
+        Map<String, Location> newIndex = new HashMap<>();
+        FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean moved = false;
+        try {
+            long position = 0;
+            for (Map.Entry<String, Location> entry : kept) {
+                Location location = entry.getValue();
+                channel.transferTo(location.offset(), location.length(), out);
+                newIndex.put(entry.getKey(), new Location(position, location.length(), location.writtenAtMs()));
+                position += location.length();
+            }
+            out.force(false);
+            // The new channel follows its file across the move; until the move is done,
+            // the old log and its channel stay as they were
+            Files.move(compacted, dir.resolve(LOG_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                out.close();
+                Files.deleteIfExists(compacted);
+            }
+        }
+        FileChannel replaced = channel;
+        channel = out;
+        index.clear();
+        index.putAll(newIndex);
+        fileSize = keptBytes;
+        logger.info("Compacted extraction cache to {} entries ({} bytes)", index.size(), fileSize);
+        try {
+            replaced.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close the extraction cache log replaced by compaction", e);
+        }
+    }
+
+    private byte[] toLine(CachedRecord cached) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(cached);
+        byte[] line = new byte[json.length + 1];
+        System.arraycopy(json, 0, line, 0, json.length);
+        line[json.length] = '\n';
+        return line;
+    }
+
+    private boolean expired(long writtenAtMs, long now) {
+        return writtenAtMs + ttl.toMillis() <= now;
+    }
+
+    private double diskEntries() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double diskBytes() {
+        lock.readLock().lock();
+        try {
+            return fileSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same text modulo line endings, runs of spaces, blank lines and Unicode forms
+    private static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        StringBuilder out = new StringBuilder(normalized.length());
+        for (String line : normalized.split("\\R")) {
+            String collapsed = line.strip().replaceAll("\\s+", " ");
+            if (collapsed.isEmpty()) continue;
+            if (!out.isEmpty()) out.append('\n');
+            out.append(collapsed);
+        }
+        return out.toString();
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(CouponRequestDto value, long writtenAtMs) {
+    }
+
+    private record Location(long offset, int length, long writtenAtMs) {
+    }
+
+    private record CachedRecord(String key, long writtenAt, CouponRequestDto value) {
+    }
+}
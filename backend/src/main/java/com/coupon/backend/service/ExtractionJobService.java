@@ -0,0 +1,213 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.dto.ExtractionJobDto;
+import com.coupon.backend.enums.ExtractionJobStatus;
+import com.coupon.backend.exception.ExtractionJobNotFoundException;
+import com.coupon.backend.exception.ServiceOverloadedException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coupon extraction as background jobs, so model calls that take seconds do not hold
+ * request threads.
+ * <p>
+ * Jobs are handed to {@link ExtractionMicroBatcher}, which coalesces them into model
+ * calls on virtual threads and caps how many calls are in flight; no thread is held
+ * per waiting job. At most maxPending jobs may be waiting or running; submitting past
+ * that is turned away with 503. Results are kept
+ * in memory for retentionSeconds after the job finishes and can be polled or streamed
+ * as server-sent events. Jobs are only visible to the user who submitted them.
+ */
+@Service
+public class ExtractionJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionJobService.class);
+
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    @Autowired
+    private ExtractionMicroBatcher extractionMicroBatcher;
+
+    @Value("${extraction.jobs.max-pending:200}")
+    private int maxPending;
+
+    @Value("${extraction.jobs.retention-seconds:600}")
+    private long retentionSeconds;
+
+    @Value("${extraction.jobs.sse-timeout-ms:120000}")
+    private long sseTimeoutMs;
+
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "extraction-job-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void stop() {
+        reaper.shutdownNow();
+    }
+
+    public ExtractionJobDto submit(String prompt, String email) {
+        Job job = createJob(email);
+        ExtractionJobDto submitted = job.toDto();
+        start(job, prompt);
+        return submitted;
+    }
+
+    /**
+     * Submits a job and returns a future of its result, for callers that want to wait
+     * without holding a thread.
+     */
+    public CompletableFuture<CouponRequestDto> submitAndAwait(String prompt, String email) {
+        Job job = createJob(email);
+        start(job, prompt);
+        return job.future;
+    }
+
+    public ExtractionJobDto getJob(UUID jobId, String email) {
+        return findJob(jobId, email).toDto();
+    }
+
+    /**
+     * Streams the job's status as "status" events: the current one at once, then each
+     * change, completing after the job is done.
+     */
+    public SseEmitter subscribe(UUID jobId, String email) {
+        Job job = findJob(jobId, email);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        synchronized (job) {
+            if (!send(emitter, job.toDto()) || job.status.isDone()) {
+                emitter.complete();
+                return emitter;
+            }
+            job.emitters.add(emitter);
+        }
+        Runnable unsubscribe = () -> {
+            synchronized (job) {
+                job.emitters.remove(emitter);
+            }
+        };
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        return emitter;
+    }
+
+    private Job createJob(String email) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            throw new ServiceOverloadedException("Too many extractions in progress, please retry shortly", RETRY_AFTER_SECONDS);
+        }
+        Job job = new Job(UUID.randomUUID(), email);
+        jobs.put(job.id, job);
+        return job;
+    }
+
+    private void start(Job job, String prompt) {
+        job.transition(ExtractionJobStatus.RUNNING);
+        CompletableFuture<CouponRequestDto> result;
+        try {
+            result = extractionMicroBatcher.extract(prompt);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((extracted, error) -> {
+            if (error == null) {
+                finish(job, extracted, null);
+            } else {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                logger.warn("Extraction job {} failed", job.id, cause);
+                finish(job, null, cause.getMessage() != null ? cause.getMessage() : "Extraction failed");
+            }
+        });
+    }
+
+    private void finish(Job job, CouponRequestDto result, String error) {
+        pending.decrementAndGet();
+        synchronized (job) {
+            job.result = result;
+            job.error = error;
+            job.completedAt = Instant.now();
+        }
+        job.transition(error == null ? ExtractionJobStatus.SUCCEEDED : ExtractionJobStatus.FAILED);
+        if (error == null) {
+            job.future.complete(result);
+        } else {
+            job.future.completeExceptionally(new RuntimeException(error));
+        }
+        reaper.schedule(() -> jobs.remove(job.id), retentionSeconds, TimeUnit.SECONDS);
+    }
+
+    private Job findJob(UUID jobId, String email) {
+        Job job = jobs.get(jobId);
+        // Someone else's job is reported the same as a missing one
+        if (job == null || !job.ownerEmail.equals(email)) {
+            throw new ExtractionJobNotFoundException("Extraction job not found");
+        }
+        return job;
+    }
+
+    private static boolean send(SseEmitter emitter, ExtractionJobDto dto) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(dto));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter is dropped
+            return false;
+        }
+    }
+
+    private static final class Job {
+        private final UUID id;
+        private final String ownerEmail;
+        private final Instant createdAt = Instant.now();
+        private final CompletableFuture<CouponRequestDto> future = new CompletableFuture<>();
+        private final List<SseEmitter> emitters = new ArrayList<>();
+        private ExtractionJobStatus status = ExtractionJobStatus.PENDING;
+        private CouponRequestDto result;
+        private String error;
+        private Instant completedAt;
+
+        Job(UUID id, String ownerEmail) {
+            this.id = id;
+            this.ownerEmail = ownerEmail;
+        }
+
+        synchronized void transition(ExtractionJobStatus next) {
+            status = next;
+            ExtractionJobDto dto = toDto();
+            emitters.removeIf(emitter -> !send(emitter, dto));
+            if (next.isDone()) {
+                emitters.forEach(SseEmitter::complete);
+                emitters.clear();
+            }
+        }
+
+        synchronized ExtractionJobDto toDto() {
+            return new ExtractionJobDto(id, status, result, error, createdAt, completedAt);
+        }
+    }
+}
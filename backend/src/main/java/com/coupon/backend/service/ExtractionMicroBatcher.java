@@ -0,0 +1,154 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.BatchExtractItemDto;
+import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.util.StreamingJsonFieldParser;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs model calls for extraction, coalescing concurrent single-text requests into
+ * batches.
+ * <p>
+ * A text that is neither rule-extracted nor cached waits up to windowMs for others to
+ * arrive; the batch is sent as one model call (see {@link JsonExtractorService#extractBatchWithModel})
+ * when the window closes or as soon as maxBatchSize texts are waiting. A window with a
+ * single text is sent as a plain single extraction. Batches run on virtual threads;
+ * how many model calls run at once is up to {@link ExtractionModelRouter}.
+ */
+@Service
+public class ExtractionMicroBatcher {
+
+    @Autowired
+    private JsonExtractorService jsonExtractorService;
+
+    @Value("${extraction.batch.window-ms:50}")
+    private long windowMs;
+
+    @Value("${extraction.batch.max-size:20}")
+    private int maxBatchSize;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("extraction-call-", 0).factory());
+    private final ScheduledExecutorService windowTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "extraction-batch-window");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private List<PendingText> waiting = new ArrayList<>();
+    private ScheduledFuture<?> windowClose;
+
+    @PreDestroy
+    public void stop() {
+        windowTimer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Extracts one text, batched with whatever else arrives within the window.
+     */
+    public CompletableFuture<CouponRequestDto> extract(String prompt) {
+        Optional<CouponRequestDto> known = jsonExtractorService.findWithoutModel(prompt);
+        if (known.isPresent()) {
+            return CompletableFuture.completedFuture(known.get());
+        }
+
+        PendingText text = new PendingText(prompt, new CompletableFuture<>());
+        List<PendingText> full = null;
+        synchronized (this) {
+            waiting.add(text);
+            if (waiting.size() >= maxBatchSize) {
+                full = drain();
+            } else if (waiting.size() == 1) {
+                windowClose = windowTimer.schedule(this::closeWindow, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return text.result();
+    }
+
+    /**
+     * Extracts the texts as given, batched among themselves only.
+     */
+    public CompletableFuture<List<BatchExtractItemDto>> extractAll(List<String> prompts) {
+        return CompletableFuture.supplyAsync(() -> jsonExtractorService.extractBatch(prompts), executor);
+    }
+
+    /**
+     * Extracts one text on a model call of its own, streaming fields to listener as they
+     * complete. Streamed texts are never batched: a shared reply would hold every field
+     * back until the texts before it were done.
+     */
+    public CompletableFuture<CouponRequestDto> extractStreaming(String prompt,
+                                                                StreamingJsonFieldParser.FieldListener listener) {
+        Optional<CouponRequestDto> known = jsonExtractorService.findWithoutModel(prompt);
+        if (known.isPresent()) {
+            return CompletableFuture.completedFuture(known.get());
+        }
+        return CompletableFuture.supplyAsync(
+                () -> jsonExtractorService.extractStreamingWithModel(prompt, listener), executor);
+    }
+
+    private void closeWindow() {
+        List<PendingText> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    // Caller holds the monitor
+    private List<PendingText> drain() {
+        List<PendingText> batch = waiting;
+        waiting = new ArrayList<>();
+        if (windowClose != null) {
+            windowClose.cancel(false);
+            windowClose = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(List<PendingText> batch) {
+        executor.execute(() -> {
+            try {
+                if (batch.size() == 1) {
+                    PendingText text = batch.get(0);
+                    text.result().complete(jsonExtractorService.extractWithModel(text.prompt()));
+                    return;
+                }
+                List<BatchExtractItemDto> outcomes =
+                        jsonExtractorService.extractBatchWithModel(batch.stream().map(PendingText::prompt).toList());
+                for (BatchExtractItemDto outcome : outcomes) {
+                    CompletableFuture<CouponRequestDto> result = batch.get(outcome.index()).result();
+                    if (outcome.result() != null) {
+                        result.complete(outcome.result());
+                    } else {
+                        result.completeExceptionally(new RuntimeException(outcome.error()));
+                    }
+                }
+            } catch (RuntimeException e) {
+                batch.forEach(text -> text.result().completeExceptionally(e));
+            }
+        });
+    }
+
+    private record PendingText(String prompt, CompletableFuture<CouponRequestDto> result) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.coupon.backend.service;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * A language model that turns coupon text into the JSON described by the instructions.
+ * Implementations are beans named after the provider ("gemini", "gemini-lite", "fake"
+ * for offline testing); {@link ExtractionModelRouter} picks among them with
+ * extraction.model and extraction.hedge.model.
+ * <p>
+ * A call must give up once timeout has passed, and should stop early when its thread
+ * is interrupted.
+ */
+public interface ExtractionModel {
+
+    /**
+     * Identifies the model in cache keys; answers from another model are not reused.
+     */
+    String modelName();
+
+    /**
+     * Returns the model's raw reply, possibly wrapped in a markdown code fence.
+     */
+    String generate(String instructions, String text, Duration timeout);
+
+    /**
+     * Returns the same reply as {@link #generate}, handing each piece to onChunk as it
+     * arrives. Models that cannot stream hand over the whole reply at once.
+     */
+    default void generateStream(String instructions, String text, Duration timeout, Consumer<String> onChunk) {
+        onChunk.accept(generate(instructions, text, timeout));
+    }
+}
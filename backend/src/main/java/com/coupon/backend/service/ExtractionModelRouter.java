@@ -0,0 +1,413 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.exception.ServiceOverloadedException;
+import com.coupon.backend.util.CircuitBreaker;
+import com.coupon.backend.util.LatencyWindow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Sends extraction calls to the model providers, keeping a slow or failing upstream
+ * from stalling every extraction.
+ * <p>
+ * extraction.model names the primary provider and extraction.hedge.model an optional
+ * secondary one; both are bean names of {@link ExtractionModel}s and may be the same.
+ * Each call gets one deadline, timeoutMs from its start. The wait for a provider slot,
+ * the provider's own timeout and any hedge or fallback all draw on what is left of it.
+ * <p>
+ * Each provider has:
+ * <ul>
+ *   <li>a bulkhead of extraction.providers.&lt;name&gt;.max-concurrent-calls
+ *   (default extraction.max-concurrent-calls); calls wait for a slot until the deadline</li>
+ *   <li>a {@link CircuitBreaker}; while the primary's is open, calls go straight to the
+ *   secondary, or are turned away with 503 if there is none</li>
+ *   <li>a window of recent latencies</li>
+ * </ul>
+ * If the primary has not answered by its hedge percentile (hedge.percentile, p95 by
+ * default), the same call is sent to the secondary as well. The first answer wins and
+ * the other call is cancelled. Until enough latencies are in, hedge.initial-delay-ms
+ * stands in for the percentile, and no hedge goes out before hedge.min-delay-ms. Hedges
+ * never wait for a slot. A primary that fails outright hands the rest of the deadline
+ * to the secondary. Streams are neither hedged nor retried, since chunks already handed
+ * on cannot be taken back.
+ * <p>
+ * Callers cache answers under the primary's model name, so each {@link Reply} says
+ * whether the primary gave it; hedge and fallback answers are used but not cached.
+ */
+@Service
+public class ExtractionModelRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionModelRouter.class);
+
+    private static final int LATENCY_SAMPLES = 200;
+    private static final int PERCENTILE_EVERY = 20;
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    @Autowired
+    private Map<String, ExtractionModel> models;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${extraction.model:gemini}")
+    private String primaryName;
+
+    @Value("${extraction.hedge.model:}")
+    private String secondaryName;
+
+    @Value("${extraction.timeout-ms:30000}")
+    private long timeoutMs;
+
+    @Value("${extraction.max-concurrent-calls:8}")
+    private int defaultMaxConcurrentCalls;
+
+    @Value("${extraction.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    @Value("${extraction.hedge.initial-delay-ms:3000}")
+    private long hedgeInitialDelayMs;
+
+    @Value("${extraction.hedge.min-delay-ms:300}")
+    private long hedgeMinDelayMs;
+
+    @Value("${extraction.breaker.window:20}")
+    private int breakerWindow;
+
+    @Value("${extraction.breaker.min-calls:10}")
+    private int breakerMinCalls;
+
+    @Value("${extraction.breaker.failure-rate:0.5}")
+    private double breakerFailureRate;
+
+    @Value("${extraction.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("extraction-model-", 0).factory());
+
+    private Provider primary;
+    private Provider secondary;
+    private Counter hedgesSent;
+    private Counter hedgesWon;
+    private Counter fallbacks;
+
+    @PostConstruct
+    public void init() {
+        Map<String, Provider> providers = new HashMap<>();
+        primary = providers.computeIfAbsent(primaryName, this::provider);
+        secondary = secondaryName.isBlank() ? null : providers.computeIfAbsent(secondaryName, this::provider);
+        hedgesSent = Counter.builder("coupon.extraction.hedges").tag("result", "sent").register(meterRegistry);
+        hedgesWon = Counter.builder("coupon.extraction.hedges").tag("result", "won").register(meterRegistry);
+        fallbacks = Counter.builder("coupon.extraction.fallbacks").register(meterRegistry);
+        logger.info("Extraction model: {}{}", primaryName, secondary == null ? "" : ", hedged to " + secondaryName);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The primary's model name, for cache keys.
+     */
+    public String modelName() {
+        return primary.model.modelName();
+    }
+
+    public Reply generate(String instructions, String text) {
+        return call((model, timeout) -> model.generate(instructions, text, timeout), true);
+    }
+
+    /**
+     * Streams the reply to onChunk and returns whether the primary gave it. An exception
+     * thrown by onChunk ends the call and is rethrown as is, without counting against
+     * the provider.
+     */
+    public boolean generateStream(String instructions, String text, Consumer<String> onChunk) {
+        Consumer<String> guarded = chunk -> {
+            try {
+                onChunk.accept(chunk);
+            } catch (RuntimeException e) {
+                throw new ConsumerAbortedException(e);
+            }
+        };
+        return call((model, timeout) -> {
+            model.generateStream(instructions, text, timeout, guarded);
+            return null;
+        }, false).fromPrimary();
+    }
+
+    /**
+     * A model's reply, and whether the primary gave it rather than a hedge or fallback.
+     */
+    public record Reply(String text, boolean fromPrimary) {
+    }
+
+    private Reply call(ModelCall call, boolean hedged) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Provider first = primary;
+        CircuitBreaker.Permit permit = primary.breaker.tryAcquire();
+        if (permit == null && secondary != null && secondary != primary) {
+            first = secondary;
+            permit = secondary.breaker.tryAcquire();
+        }
+        if (permit == null) {
+            throw new ServiceOverloadedException("Extraction is temporarily unavailable, please retry shortly",
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(breakerOpenMs)));
+        }
+        if (first != primary) {
+            fallbacks.increment();
+        }
+        // Set while a hedge or fallback may still go out
+        Provider backup = hedged && first == primary ? secondary : null;
+        long hedgeAt = System.nanoTime() + first.hedgeDelayNanos();
+
+        ExecutorCompletionService<String> completions = new ExecutorCompletionService<>(executor);
+        List<Attempt> attempts = new ArrayList<>(2);
+        attempts.add(submit(completions, first, permit, call, deadline, true));
+        RuntimeException lastError = null;
+        try {
+            while (attempts.stream().anyMatch(attempt -> !attempt.settled)) {
+                long now = System.nanoTime();
+                if (now - deadline >= 0) {
+                    attempts.forEach(Attempt::timedOut);
+                    throw new RuntimeException("Extraction timed out after " + timeoutMs + "ms");
+                }
+                long wakeAt = backup != null && hedgeAt - deadline < 0 ? hedgeAt : deadline;
+                Future<String> done = completions.poll(wakeAt - now, TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    if (backup != null && System.nanoTime() - hedgeAt >= 0) {
+                        CircuitBreaker.Permit hedgePermit = backup.breaker.tryAcquire();
+                        if (hedgePermit != null) {
+                            hedgesSent.increment();
+                            attempts.add(submit(completions, backup, hedgePermit, call, deadline, false));
+                        }
+                        backup = null;
+                    }
+                    continue;
+                }
+                Attempt attempt = attempts.stream().filter(a -> a.future == done).findFirst().orElseThrow();
+                try {
+                    String reply = done.get();
+                    attempt.succeeded();
+                    if (attempt != attempts.get(0)) {
+                        hedgesWon.increment();
+                    }
+                    return new Reply(reply, attempt.provider == primary);
+                } catch (ExecutionException e) {
+                    ConsumerAbortedException aborted = consumerAborted(e.getCause());
+                    if (aborted != null) {
+                        attempt.aborted();
+                        throw aborted.getCause();
+                    }
+                    lastError = e.getCause() instanceof RuntimeException cause ? cause
+                            : new RuntimeException(e.getCause().getMessage(), e.getCause());
+                    attempt.failed(lastError);
+                    CircuitBreaker.Permit fallbackPermit = backup != null ? backup.breaker.tryAcquire() : null;
+                    if (fallbackPermit != null) {
+                        fallbacks.increment();
+                        attempts.add(submit(completions, backup, fallbackPermit, call, deadline, true));
+                    }
+                    backup = null;
+                }
+            }
+            throw lastError;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Extraction was cancelled");
+        } finally {
+            attempts.forEach(Attempt::abandon);
+        }
+    }
+
+    private Attempt submit(ExecutorCompletionService<String> completions, Provider provider,
+                           CircuitBreaker.Permit permit, ModelCall call, long deadline, boolean waitForSlot) {
+        AtomicBoolean started = new AtomicBoolean();
+        return new Attempt(provider, permit, started,
+                completions.submit(task(provider, call, deadline, waitForSlot, started)));
+    }
+
+    private Callable<String> task(Provider provider, ModelCall call, long deadline, boolean waitForSlot,
+                                  AtomicBoolean started) {
+        return () -> {
+            long wait = waitForSlot ? Math.max(0, deadline - System.nanoTime()) : 0;
+            if (!provider.bulkhead.tryAcquire(wait, TimeUnit.NANOSECONDS)) {
+                throw new ServiceOverloadedException("Too many extractions in progress, please retry shortly",
+                        RETRY_AFTER_SECONDS);
+            }
+            started.set(true);
+            try {
+                long start = System.nanoTime();
+                String reply = call.apply(provider.model, Duration.ofNanos(Math.max(1, deadline - start)));
+                long elapsed = System.nanoTime() - start;
+                provider.latencies.record(elapsed);
+                provider.latency.record(elapsed, TimeUnit.NANOSECONDS);
+                return reply;
+            } finally {
+                provider.bulkhead.release();
+            }
+        };
+    }
+
+    // The consumer's exception, should the model have wrapped it on the way out
+    private static ConsumerAbortedException consumerAborted(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConsumerAbortedException aborted) return aborted;
+        }
+        return null;
+    }
+
+    private Provider provider(String name) {
+        ExtractionModel model = models.get(name);
+        if (model == null) {
+            throw new IllegalStateException("Unknown extraction model '" + name + "', expected one of " + models.keySet());
+        }
+        int maxConcurrentCalls = environment.getProperty(
+                "extraction.providers." + name + ".max-concurrent-calls", Integer.class, defaultMaxConcurrentCalls);
+        return new Provider(name, model, maxConcurrentCalls);
+    }
+
+    @FunctionalInterface
+    private interface ModelCall {
+        String apply(ExtractionModel model, Duration timeout);
+    }
+
+    // Thrown on our side, by whoever consumes the chunks: a client gone or a reply that
+    // does not parse says nothing about the provider's health
+    private static final class ConsumerAbortedException extends RuntimeException {
+        private ConsumerAbortedException(RuntimeException cause) {
+            super(cause.getMessage(), cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+
+    private final class Provider {
+        private final String name;
+        private final ExtractionModel model;
+        private final Semaphore bulkhead;
+        private final CircuitBreaker breaker;
+        private final LatencyWindow latencies;
+        private final Timer latency;
+
+        private Provider(String name, ExtractionModel model, int maxConcurrentCalls) {
+            this.name = name;
+            this.model = model;
+            this.bulkhead = new Semaphore(maxConcurrentCalls, true);
+            this.breaker = new CircuitBreaker(breakerWindow, breakerMinCalls, breakerFailureRate, breakerOpenMs);
+            this.latencies = new LatencyWindow(LATENCY_SAMPLES, hedgePercentile, PERCENTILE_EVERY);
+            this.latency = Timer.builder("coupon.extraction.model.latency").tag("provider", name).register(meterRegistry);
+            Gauge.builder("coupon.extraction.model.in_flight", bulkhead, b -> maxConcurrentCalls - b.availablePermits())
+                    .tag("provider", name).register(meterRegistry);
+            Gauge.builder("coupon.extraction.model.breaker.state", breaker, b -> b.state().ordinal())
+                    .tag("provider", name).register(meterRegistry);
+            Gauge.builder("coupon.extraction.model.hedge.delay", this, p -> p.hedgeDelayNanos() / 1e6)
+                    .tag("provider", name).baseUnit("milliseconds").register(meterRegistry);
+        }
+
+        private long hedgeDelayNanos() {
+            long percentile = latencies.percentile();
+            long delay = percentile < 0 ? TimeUnit.MILLISECONDS.toNanos(hedgeInitialDelayMs) : percentile;
+            return Math.max(delay, TimeUnit.MILLISECONDS.toNanos(hedgeMinDelayMs));
+        }
+
+        private void count(String outcome) {
+            meterRegistry.counter("coupon.extraction.model.calls", "provider", name, "outcome", outcome).increment();
+        }
+    }
+
+    // One call to one provider; settled exactly once, which settles its breaker permit
+    private static final class Attempt {
+        private final Provider provider;
+        private final CircuitBreaker.Permit permit;
+        // Set once the call has a bulkhead slot and has gone to the provider
+        private final AtomicBoolean started;
+        private final Future<String> future;
+        private boolean settled;
+
+        private Attempt(Provider provider, CircuitBreaker.Permit permit, AtomicBoolean started, Future<String> future) {
+            this.provider = provider;
+            this.permit = permit;
+            this.started = started;
+            this.future = future;
+        }
+
+        private void succeeded() {
+            settled = true;
+            provider.breaker.onSuccess(permit);
+            provider.count("success");
+        }
+
+        private void failed(RuntimeException error) {
+            settled = true;
+            if (error instanceof ServiceOverloadedException) {
+                // No slot was free; says nothing about the provider's health
+                provider.breaker.onAbandoned(permit);
+                provider.count("rejected");
+            } else {
+                provider.breaker.onFailure(permit);
+                provider.count("failure");
+            }
+        }
+
+        private void aborted() {
+            settled = true;
+            provider.breaker.onAbandoned(permit);
+            provider.count("aborted");
+        }
+
+        private void timedOut() {
+            if (settled) return;
+            settled = true;
+            future.cancel(true);
+            if (started.get()) {
+                provider.breaker.onFailure(permit);
+                provider.count("timeout");
+            } else {
+                // Still waiting for a slot; the provider never saw the call
+                provider.breaker.onAbandoned(permit);
+                provider.count("rejected");
+            }
+        }
+
+        private void abandon() {
+            if (settled) return;
+            settled = true;
+            future.cancel(true);
+            provider.breaker.onAbandoned(permit);
+            provider.count("cancelled");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.ExtractResponseDto;
+import com.coupon.backend.dto.ExtractedFieldDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Streaming extraction over SSE, so a form can fill in while the model is still
+ * writing. Sends a "field" event for each coupon field as it completes, then one
+ * "result" event with the whole coupon (defaults applied), or an "error" event.
+ * Texts answered without the model get the "result" event only. A client that goes
+ * away ends the model call.
+ */
+@Service
+public class ExtractionStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionStreamService.class);
+
+    @Autowired
+    private ExtractionMicroBatcher extractionMicroBatcher;
+
+    @Value("${extraction.stream.timeout-ms:120000}")
+    private long timeoutMs;
+
+    public SseEmitter stream(String prompt) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        extractionMicroBatcher.extractStreaming(prompt, (name, value) -> {
+            if (!send(emitter, "field", new ExtractedFieldDto(name, value))) {
+                throw new RuntimeException("Client went away");
+            }
+        }).whenComplete((result, error) -> {
+            if (error == null) {
+                send(emitter, "result", new ExtractResponseDto(result));
+            } else {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                logger.warn("Streaming extraction failed", cause);
+                send(emitter, "error", Map.of("message", cause.getMessage() != null ? cause.getMessage() : "Extraction failed"));
+            }
+            emitter.complete();
+        });
+        return emitter;
+    }
+
+    private static boolean send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+}
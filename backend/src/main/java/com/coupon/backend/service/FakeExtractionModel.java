@@ -0,0 +1,178 @@
+package com.coupon.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Offline stand-in for the real model, for load and latency testing without network
+ * access or API quota. Replies after latencyMs (plus up to jitterMs, plus perItemMs for
+ * every text of a batch) with JSON built from a few obvious patterns in the text: the
+ * first line as title, a code-like token, and a percentage or flat amount. Batch
+ * replies leave out each text with probability dropRate, to exercise retries. Streamed
+ * replies start after a quarter of the delay and arrive in small pieces over the rest.
+ * <p>
+ * For tail-latency tests, a slowRate share of calls takes slowMs longer and a
+ * failureRate share fails after its delay; a call whose delay exceeds its timeout
+ * fails at the timeout, like a real client would. All draws come from one random
+ * sequence seeded with seed, so a load test replays the same latencies and failures.
+ */
+@Component("fake")
+public class FakeExtractionModel implements ExtractionModel {
+
+    private static final Pattern CODE = Pattern.compile("\\b(?=[A-Z0-9]*[0-9])(?=[A-Z0-9]*[A-Z])[A-Z0-9]{5,15}\\b");
+    private static final Pattern PERCENT = Pattern.compile("(\\d{1,2})\\s?%");
+    private static final Pattern BATCH_HEADER = Pattern.compile(
+            "(?m)^" + Pattern.quote(JsonExtractorService.BATCH_ITEM_HEADER) + "\\d+\\s*$");
+    private static final Pattern FLAT = Pattern.compile("(?:₹|Rs\\.?|INR|\\$)\\s?(\\d+)");
+
+    private static final int STREAM_CHUNK_CHARS = 16;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${extraction.fake.latency-ms:800}")
+    private long latencyMs;
+
+    @Value("${extraction.fake.jitter-ms:400}")
+    private long jitterMs;
+
+    @Value("${extraction.fake.per-item-ms:50}")
+    private long perItemMs;
+
+    @Value("${extraction.fake.drop-rate:0}")
+    private double dropRate;
+
+    @Value("${extraction.fake.slow-rate:0}")
+    private double slowRate;
+
+    @Value("${extraction.fake.slow-ms:5000}")
+    private long slowMs;
+
+    @Value("${extraction.fake.failure-rate:0}")
+    private double failureRate;
+
+    private final SplittableRandom random;
+
+    public FakeExtractionModel(@Value("${extraction.fake.seed:42}") long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public String modelName() {
+        return "fake";
+    }
+
+    @Override
+    public String generate(String instructions, String text, Duration timeout) {
+        Outcome outcome = draw(text, timeout);
+        sleep(outcome.delayMs());
+        outcome.throwIfFailed();
+        return reply(text);
+    }
+
+    @Override
+    public void generateStream(String instructions, String text, Duration timeout, Consumer<String> onChunk) {
+        Outcome outcome = draw(text, timeout);
+        long delay = outcome.delayMs();
+        String reply = reply(text);
+        sleep(delay / 4);
+        int chunks = (reply.length() + STREAM_CHUNK_CHARS - 1) / STREAM_CHUNK_CHARS;
+        for (int from = 0; from < reply.length(); from += STREAM_CHUNK_CHARS) {
+            sleep((delay - delay / 4) / chunks);
+            if (from + STREAM_CHUNK_CHARS >= reply.length()) outcome.throwIfFailed();
+            onChunk.accept(reply.substring(from, Math.min(from + STREAM_CHUNK_CHARS, reply.length())));
+        }
+    }
+
+    private synchronized Outcome draw(String text, Duration timeout) {
+        long delay = latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs) : 0) + perItemMs * splitBatch(text).size();
+        if (random.nextDouble() < slowRate) delay += slowMs;
+        boolean failed = random.nextDouble() < failureRate;
+        if (delay > timeout.toMillis()) {
+            return new Outcome(timeout.toMillis(), "Fake model timed out after " + timeout.toMillis() + "ms");
+        }
+        return new Outcome(delay, failed ? "Fake model failed" : null);
+    }
+
+    private synchronized boolean drop() {
+        return random.nextDouble() < dropRate;
+    }
+
+    private String reply(String text) {
+        List<String> texts = splitBatch(text);
+        try {
+            if (!text.startsWith(JsonExtractorService.BATCH_ITEM_HEADER)) {
+                return "```json\n" + objectMapper.writeValueAsString(extract(text)) + "\n```";
+            }
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                if (drop()) continue;
+                Map<String, Object> result = extract(texts.get(i));
+                result.put("index", i);
+                results.add(result);
+            }
+            return objectMapper.writeValueAsString(results);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to build fake extraction", e);
+        }
+    }
+
+    private static Map<String, Object> extract(String text) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        String title = text.strip().lines().findFirst().orElse("").strip();
+        result.put("title", title.length() > 80 ? title.substring(0, 80) : title);
+        result.put("description", text.strip().length() > 200 ? text.strip().substring(0, 200) : text.strip());
+        Matcher code = CODE.matcher(text);
+        result.put("code", code.find() ? code.group() : null);
+        Matcher percent = PERCENT.matcher(text);
+        Matcher flat = FLAT.matcher(text);
+        if (percent.find()) {
+            result.put("discountType", "PERCENTAGE");
+            result.put("discountValue", Integer.parseInt(percent.group(1)));
+        } else if (flat.find()) {
+            result.put("discountType", "FLAT");
+            result.put("discountValue", Integer.parseInt(flat.group(1)));
+        }
+        result.put("isActive", true);
+        result.put("totalQuantity", 1);
+        result.put("soldQuantity", 0);
+        result.put("isFree", true);
+        return result;
+    }
+
+    private static List<String> splitBatch(String text) {
+        if (!text.startsWith(JsonExtractorService.BATCH_ITEM_HEADER)) {
+            return List.of(text);
+        }
+        List<String> texts = new ArrayList<>();
+        for (String part : BATCH_HEADER.split(text)) {
+            if (!part.isBlank()) texts.add(part.strip());
+        }
+        return texts;
+    }
+
+    private record Outcome(long delayMs, String error) {
+        void throwIfFailed() {
+            if (error != null) throw new RuntimeException(error);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Extraction interrupted");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.util.CouponTextRules;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Rule-based extraction for texts that follow the usual promo templates, so they are
+ * answered without a model call. A text is taken only when the rules find a code and
+ * a discount and their confidence reaches minConfidence; everything else goes to the
+ * model. Outcomes are counted in coupon.extraction.fast_path{result}.
+ */
+@Component
+public class FastPathExtractor {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${extraction.fast-path.enabled:true}")
+    private boolean enabled;
+
+    @Value("${extraction.fast-path.min-confidence:0.8}")
+    private double minConfidence;
+
+    private Counter hits;
+    private Counter lowConfidence;
+    private Counter missingFields;
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("coupon.extraction.fast_path").tag("result", "hit").register(meterRegistry);
+        lowConfidence = Counter.builder("coupon.extraction.fast_path").tag("result", "low_confidence").register(meterRegistry);
+        missingFields = Counter.builder("coupon.extraction.fast_path").tag("result", "missing_fields").register(meterRegistry);
+    }
+
+    /**
+     * The rule-based result for a text, or empty when the model should extract it.
+     */
+    public Optional<CouponRequestDto> tryExtract(String prompt) {
+        if (!enabled || prompt == null) {
+            return Optional.empty();
+        }
+        CouponTextRules.Extraction extraction = CouponTextRules.extract(prompt);
+        if (!extraction.hasCodeAndDiscount()) {
+            missingFields.increment();
+            return Optional.empty();
+        }
+        if (extraction.confidence() < minConfidence) {
+            lowConfidence.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(extraction.coupon());
+    }
+}
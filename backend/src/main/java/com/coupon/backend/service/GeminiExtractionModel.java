@@ -0,0 +1,67 @@
+package com.coupon.backend.service;
+
+import com.google.genai.Client;
+import com.google.genai.ResponseStream;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import com.google.genai.types.GenerateContentResponse;
+import com.google.genai.types.HttpOptions;
+import com.google.genai.types.Part;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * One Gemini model; instances are set up in ExtractionModelConfig.
+ * <p>
+ * The instructions go in as the system instruction and the text as the only content,
+ * so every request starts with the same prefix and Gemini's implicit prompt caching
+ * can bill it at the cached rate.
+ */
+public class GeminiExtractionModel implements ExtractionModel {
+
+    private final Client client;
+    private final String model;
+
+    public GeminiExtractionModel(String apiKey, String model) {
+        this.client = Client.builder().apiKey(apiKey).build();
+        this.model = model;
+    }
+
+    @Override
+    public String modelName() {
+        return model;
+    }
+
+    @Override
+    public String generate(String instructions, String text, Duration timeout) {
+        GenerateContentResponse response = client.models.generateContent(
+                model,
+                "Text:\n" + text,
+                config(instructions, timeout));
+        return response.text();
+    }
+
+    @Override
+    public void generateStream(String instructions, String text, Duration timeout, Consumer<String> onChunk) {
+        try (ResponseStream<GenerateContentResponse> stream = client.models.generateContentStream(
+                model,
+                "Text:\n" + text,
+                config(instructions, timeout))) {
+            for (GenerateContentResponse response : stream) {
+                String chunk = response.text();
+                if (chunk != null && !chunk.isEmpty()) {
+                    onChunk.accept(chunk);
+                }
+            }
+        }
+    }
+
+    private static GenerateContentConfig config(String instructions, Duration timeout) {
+        int millis = (int) Math.max(1, Math.min(Integer.MAX_VALUE, timeout.toMillis()));
+        return GenerateContentConfig.builder()
+                .systemInstruction(Content.fromParts(Part.fromText(instructions)))
+                .httpOptions(HttpOptions.builder().timeout(millis).build())
+                .build();
+    }
+}
@@ -1,21 +1,33 @@
 package com.coupon.backend.service;
 
+import com.coupon.backend.dto.BatchExtractItemDto;
 import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.mapper.ExtractResultDecoder;
 import com.coupon.backend.mapper.ExtractResultMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.genai.Client;
-import com.google.genai.types.GenerateContentResponse;
+import com.coupon.backend.util.PromptCompactor;
+import com.coupon.backend.util.StreamingJsonFieldParser;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class JsonExtractorService {
 
-    private static final String MODEL = "gemini-3-flash-preview";
+    private static final Logger logger = LoggerFactory.getLogger(JsonExtractorService.class);
 
     private static final String INSTRUCTIONS = """
                 Extract coupon details from the given text and return STRICT JSON only.
@@ -59,32 +71,307 @@ public class JsonExtractorService {
                 }
                 """;
 
+    /**
+     * Marks the start of each text in a batch prompt, followed by its index.
+     */
+    public static final String BATCH_ITEM_HEADER = "### Text ";
 
-    private final Client client;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String BATCH_INSTRUCTIONS = """
+                The input contains several separate coupon texts. Each starts with a line
+                "### Text <n>", where n counts from 0.
+
+                Extract every text on its own, following the rules below, and return ONE JSON
+                array with exactly one object per text, in input order. Add an "index" field
+                holding n to every object. Never merge texts or carry values from one text to
+                another.
+
+                """ + INSTRUCTIONS;
+
+    // Part of every cache key: editing the instructions retires answers to the old ones
+    private static final String INSTRUCTIONS_VERSION = Integer.toHexString(INSTRUCTIONS.hashCode());
+
+    // Fields of the reply worth streaming to the form; bookkeeping fields are left out
+    private static final Set<String> COUPON_FIELDS = Arrays.stream(CouponRequestDto.class.getRecordComponents())
+            .map(RecordComponent::getName)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final ExtractionModelRouter extractionModelRouter;
+    private final ExtractResultDecoder extractResultDecoder;
     private final ExtractResultMapper extractResultMapper;
+    private final ExtractionCache extractionCache;
+    private final FastPathExtractor fastPathExtractor;
+    private final int maxBatchSize;
+    private final int maxBatchAttempts;
+    private final boolean compactionEnabled;
+    private final int compactionMaxChars;
+    private final DistributionSummary charsBefore;
+    private final DistributionSummary charsAfter;
+    private final DistributionSummary tokensBefore;
+    private final DistributionSummary tokensAfter;
 
     public JsonExtractorService(
-            @Value("${gemini.api_key}") String apiKey,
-            @Autowired ExtractResultMapper extractResultMapper) {
-        this.client = Client.builder().apiKey(apiKey).build();
+            @Autowired ExtractionModelRouter extractionModelRouter,
+            @Autowired ExtractResultDecoder extractResultDecoder,
+            @Autowired ExtractResultMapper extractResultMapper,
+            @Autowired ExtractionCache extractionCache,
+            @Autowired FastPathExtractor fastPathExtractor,
+            @Value("${extraction.batch.max-size:20}") int maxBatchSize,
+            @Value("${extraction.batch.max-attempts:3}") int maxBatchAttempts,
+            @Value("${extraction.compaction.enabled:true}") boolean compactionEnabled,
+            @Value("${extraction.compaction.max-chars:4000}") int compactionMaxChars,
+            @Autowired MeterRegistry meterRegistry) {
+        this.extractionModelRouter = extractionModelRouter;
+        this.extractResultDecoder = extractResultDecoder;
         this.extractResultMapper = extractResultMapper;
+        this.extractionCache = extractionCache;
+        this.fastPathExtractor = fastPathExtractor;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchAttempts = maxBatchAttempts;
+        this.compactionEnabled = compactionEnabled;
+        this.compactionMaxChars = compactionMaxChars;
+        this.charsBefore = promptSize(meterRegistry, "coupon.extraction.prompt.chars", "before");
+        this.charsAfter = promptSize(meterRegistry, "coupon.extraction.prompt.chars", "after");
+        this.tokensBefore = promptSize(meterRegistry, "coupon.extraction.prompt.tokens", "before");
+        this.tokensAfter = promptSize(meterRegistry, "coupon.extraction.prompt.tokens", "after");
+    }
+
+    private static DistributionSummary promptSize(MeterRegistry registry, String name, String stage) {
+        return DistributionSummary.builder(name).tag("stage", stage).register(registry);
+    }
+
+    public CouponRequestDto extractFromPrompt(String original) {
+        String prompt = compact(original);
+        return findCompactedWithoutModel(prompt).orElseGet(() -> callModel(original, prompt));
+    }
+
+    /**
+     * Extracts like {@link #extractFromPrompt} but goes straight to the model, for a text
+     * {@link #findWithoutModel} already came back empty for.
+     */
+    public CouponRequestDto extractWithModel(String original) {
+        return callModel(original, compact(original));
+    }
+
+    private CouponRequestDto callModel(String original, String prompt) {
+        recordCompaction(original, prompt);
+        Answer answer = extractOne(prompt);
+        CouponRequestDto extracted = answer.results().get(0);
+        if (extracted == null) {
+            return null;
+        }
+        // Cached before defaults, so a missing start date is "today" on every hit
+        if (answer.cacheable()) {
+            extractionCache.put(cacheKey(prompt), extracted);
+        }
+        return extractResultMapper.withDefaults(extracted);
+    }
+
+    /**
+     * Extracts like {@link #extractFromPrompt}, streaming the model's reply: each coupon
+     * field is handed to listener as soon as its value is complete. Texts answered by the
+     * fast-path rules or the cache report no fields, only the returned result.
+     */
+    public CouponRequestDto extractStreaming(String original, StreamingJsonFieldParser.FieldListener listener) {
+        String prompt = compact(original);
+        return findCompactedWithoutModel(prompt).orElseGet(() -> streamModel(original, prompt, listener));
+    }
+
+    /**
+     * Streams like {@link #extractStreaming} but goes straight to the model, for a text
+     * {@link #findWithoutModel} already came back empty for.
+     */
+    public CouponRequestDto extractStreamingWithModel(String original, StreamingJsonFieldParser.FieldListener listener) {
+        return streamModel(original, compact(original), listener);
+    }
+
+    private CouponRequestDto streamModel(String original, String prompt, StreamingJsonFieldParser.FieldListener listener) {
+        recordCompaction(original, prompt);
+
+        StreamingJsonFieldParser parser = new StreamingJsonFieldParser((name, value) -> {
+            if (COUPON_FIELDS.contains(name)) listener.onField(name, value);
+        });
+        boolean fromPrimary = extractionModelRouter.generateStream(INSTRUCTIONS, prompt, parser::feed);
+        CouponRequestDto extracted = extractResultMapper.toExtractedDto(parser.finish());
+        if (fromPrimary) {
+            extractionCache.put(cacheKey(prompt), extracted);
+        }
+        return extractResultMapper.withDefaults(extracted);
+    }
+
+    /**
+     * The result for a text if it can be had without calling the model: from the
+     * fast-path rules or the cache. Callers that go on to the model after an empty answer
+     * use the *WithModel methods, so each text is looked up, and counted, once.
+     */
+    public Optional<CouponRequestDto> findWithoutModel(String prompt) {
+        return findCompactedWithoutModel(compact(prompt));
+    }
+
+    private Optional<CouponRequestDto> findCompactedWithoutModel(String prompt) {
+        return fastPathExtractor.tryExtract(prompt)
+                .or(() -> extractionCache.get(cacheKey(prompt)))
+                .map(extractResultMapper::withDefaults);
+    }
+
+    /**
+     * Extracts several texts, packing up to maxBatchSize of them into each model call so
+     * the instructions are sent once per call rather than once per text. Results are
+     * matched back by index; texts missing from a reply, or whose call failed, are
+     * retried on their own batch, up to maxBatchAttempts calls per text. The outcome
+     * list is in input order. Texts the fast-path rules or the cache can answer never
+     * reach the model.
+     */
+    public List<BatchExtractItemDto> extractBatch(List<String> originals) {
+        return extractBatch(originals, true);
+    }
+
+    /**
+     * Batches like {@link #extractBatch} but sends every text to the model, for texts
+     * {@link #findWithoutModel} already came back empty for.
+     */
+    public List<BatchExtractItemDto> extractBatchWithModel(List<String> originals) {
+        return extractBatch(originals, false);
     }
 
-    public CouponRequestDto extractFromPrompt(String prompt) {
-        String finalPrompt = INSTRUCTIONS + "\n\nText:\n" + prompt;
-        GenerateContentResponse response = client.models.generateContent(
-                MODEL,
-                finalPrompt,
-                null);
-        String raw = response.text();
-        String json = stripMarkdownJson(raw);
+    private List<BatchExtractItemDto> extractBatch(List<String> originals, boolean lookUp) {
+        int n = originals.size();
+        List<String> prompts = originals.stream().map(this::compact).toList();
+        CouponRequestDto[] results = new CouponRequestDto[n];
+        String[] errors = new String[n];
+        String[] cacheKeys = new String[n];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (lookUp) {
+                Optional<CouponRequestDto> ruleBased = fastPathExtractor.tryExtract(prompts.get(i));
+                if (ruleBased.isPresent()) {
+                    results[i] = extractResultMapper.withDefaults(ruleBased.get());
+                    continue;
+                }
+            }
+            cacheKeys[i] = cacheKey(prompts.get(i));
+            Optional<CouponRequestDto> cached = lookUp ? extractionCache.get(cacheKeys[i]) : Optional.empty();
+            if (cached.isPresent()) {
+                results[i] = extractResultMapper.withDefaults(cached.get());
+            } else {
+                recordCompaction(originals.get(i), prompts.get(i));
+                pending.add(i);
+            }
+        }
+
+        for (int attempt = 1; attempt <= maxBatchAttempts && !pending.isEmpty(); attempt++) {
+            List<Integer> failed = new ArrayList<>();
+            for (int from = 0; from < pending.size(); from += maxBatchSize) {
+                List<Integer> chunk = pending.subList(from, Math.min(from + maxBatchSize, pending.size()));
+                Answer extracted;
+                try {
+                    extracted = extractChunk(chunk.stream().map(prompts::get).toList());
+                } catch (RuntimeException e) {
+                    for (int i : chunk) errors[i] = e.getMessage() != null ? e.getMessage() : "Extraction failed";
+                    failed.addAll(chunk);
+                    continue;
+                }
+                for (int position = 0; position < chunk.size(); position++) {
+                    int i = chunk.get(position);
+                    CouponRequestDto dto = extracted.results().get(position);
+                    if (dto == null) {
+                        errors[i] = "No result was returned for this text";
+                        failed.add(i);
+                    } else {
+                        if (extracted.cacheable()) {
+                            extractionCache.put(cacheKeys[i], dto);
+                        }
+                        results[i] = extractResultMapper.withDefaults(dto);
+                        errors[i] = null;
+                    }
+                }
+            }
+            if (!failed.isEmpty() && attempt < maxBatchAttempts) {
+                logger.debug("Retrying extraction of {} of {} texts", failed.size(), n);
+            }
+            pending = failed;
+        }
+
+        List<BatchExtractItemDto> outcomes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            outcomes.add(new BatchExtractItemDto(i, results[i], results[i] == null ? errors[i] : null));
+        }
+        return outcomes;
+    }
+
+    /**
+     * The text as it is matched, cached and sent to the model: see {@link PromptCompactor}.
+     */
+    private String compact(String prompt) {
+        return compactionEnabled ? PromptCompactor.compact(prompt, compactionMaxChars).text() : prompt;
+    }
+
+    // Once per text that goes to the model, so the sizes show what compaction saves on calls
+    private void recordCompaction(String original, String compacted) {
+        charsBefore.record(original.length());
+        charsAfter.record(compacted.length());
+        tokensBefore.record(PromptCompactor.estimateTokens(original));
+        tokensAfter.record(PromptCompactor.estimateTokens(compacted));
+    }
+
+    private String cacheKey(String prompt) {
+        return extractionCache.keyFor(extractionModelRouter.modelName(), INSTRUCTIONS_VERSION, prompt);
+    }
+
+    // Results by position in the texts sent, and whether they may be cached: only the
+    // primary's answers are, as the cache key carries its model name
+    private record Answer(Map<Integer, CouponRequestDto> results, boolean cacheable) {
+    }
+
+    private Answer extractOne(String prompt) {
+        ExtractionModelRouter.Reply reply = extractionModelRouter.generate(INSTRUCTIONS, prompt);
+        String json = stripMarkdownJson(reply.text());
+        CouponRequestDto dto;
         try {
-            Map<String, Object> map = objectMapper.readValue(json, new TypeReference<>() {});
-            return extractResultMapper.toCouponRequestDto(map);
+            dto = extractResultDecoder.decode(json);
         } catch (Exception e) {
             throw new RuntimeException("Failed to parse extracted JSON: " + e.getMessage(), e);
         }
+        Map<Integer, CouponRequestDto> extracted = new HashMap<>();
+        if (dto != null) extracted.put(0, dto);
+        return new Answer(extracted, reply.fromPrimary());
+    }
+
+    // Positions missing from the reply are absent from the results
+    private Answer extractChunk(List<String> texts) {
+        if (texts.size() == 1) {
+            return extractOne(texts.get(0));
+        }
+
+        StringBuilder packed = new StringBuilder();
+        for (int i = 0; i < texts.size(); i++) {
+            packed.append(BATCH_ITEM_HEADER).append(i).append('\n').append(texts.get(i).strip()).append("\n\n");
+        }
+        ExtractionModelRouter.Reply reply = extractionModelRouter.generate(BATCH_INSTRUCTIONS, packed.toString());
+        String json = stripMarkdownJson(reply.text());
+        List<ExtractResultDecoder.IndexedResult> items;
+        try {
+            items = extractResultDecoder.decodeArray(json);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse extracted JSON: " + e.getMessage(), e);
+        }
+        Map<Integer, CouponRequestDto> extracted = new HashMap<>();
+        for (ExtractResultDecoder.IndexedResult item : items) {
+            if (item.result() != null && item.index() >= 0 && item.index() < texts.size()) {
+                extracted.putIfAbsent(item.index(), item.result());
+            }
+        }
+        // An item without an index can only be placed by its array position when the
+        // model answered every text; otherwise positions may have shifted, and the
+        // texts are left missing so they are retried
+        if (items.size() == texts.size()) {
+            for (int j = 0; j < items.size(); j++) {
+                ExtractResultDecoder.IndexedResult item = items.get(j);
+                if (item.result() != null && item.index() < 0) {
+                    extracted.putIfAbsent(j, item.result());
+                }
+            }
+        }
+        return new Answer(extracted, reply.fromPrimary());
     }
 
     private String stripMarkdownJson(String text) {
@@ -0,0 +1,181 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.exception.ServiceOverloadedException;
+import com.coupon.backend.repository.UserDetailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password hashing and verification on a dedicated, bounded pool.
+ * <p>
+ * BCrypt is deliberately slow, so a burst of signins or signups run on request
+ * threads would occupy all of them and starve cheap endpoints. Hashing runs on
+ * a fixed number of threads instead, with at most queueCapacity waiting behind them; a
+ * request that finds the queue full, or waits longer than waitTimeoutMs, is turned
+ * away at once with {@link ServiceOverloadedException} (503 with Retry-After), so no
+ * more than threads + queueCapacity request threads are ever tied up in hashing.
+ * <p>
+ * Stored hashes whose cost differs from auth.bcrypt.cost are rehashed after a
+ * successful login, in the background, so the cost can be tuned without a migration.
+ * A rehash is only queued when nothing else is, gives way if sign-ins are waiting by the
+ * time it would start, and only one runs at a time, so it never takes a place a sign-in
+ * could have used.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserDetailRepository userDetailRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${auth.bcrypt.cost:10}")
+    private int cost;
+
+    // 0 uses one thread per available processor
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${auth.hashing.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${auth.hashing.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    @Value("${auth.hashing.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private final Semaphore rehashPermit = new Semaphore(1);
+    private Timer hashTimer;
+    private Timer verifyTimer;
+    private Counter rejected;
+    private Counter rehashed;
+
+    @PostConstruct
+    public void start() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        hashTimer = Timer.builder("coupon.auth.hashing.duration").tag("operation", "hash").register(meterRegistry);
+        verifyTimer = Timer.builder("coupon.auth.hashing.duration").tag("operation", "verify").register(meterRegistry);
+        rejected = Counter.builder("coupon.auth.hashing.rejected").register(meterRegistry);
+        rehashed = Counter.builder("coupon.auth.hashing.rehashed").register(meterRegistry);
+        Gauge.builder("coupon.auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("coupon.auth.hashing.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public String hash(String rawPassword) {
+        return await(() -> hashTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public boolean matches(String rawPassword, String storedHash) {
+        return await(() -> verifyTimer.record(() -> passwordEncoder.matches(rawPassword, storedHash)));
+    }
+
+    /**
+     * Replaces the stored hash when it was made with a different cost. Best effort: it
+     * is skipped when hashing work is waiting, or another rehash is running, and
+     * retried on the next login.
+     */
+    public void rehashIfNeeded(UUID userId, String rawPassword, String storedHash) {
+        if (costOf(storedHash) == cost) return;
+        if (!executor.getQueue().isEmpty() || !rehashPermit.tryAcquire()) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    // Sign-ins queued up behind it since; they go first
+                    if (!executor.getQueue().isEmpty()) return;
+                    String newHash = hashTimer.record(() -> passwordEncoder.encode(rawPassword));
+                    // Conditional on the old hash, so a password changed meanwhile is kept
+                    if (userDetailRepository.updatePasswordHash(userId, storedHash, newHash) > 0) {
+                        rehashed.increment();
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to rehash password for user {}", userId, e);
+                } finally {
+                    rehashPermit.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Filled up since the check; the next login tries again
+            rehashPermit.release();
+        }
+    }
+
+    private <T> T await(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw overloaded();
+        }
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw overloaded();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ServiceOverloadedException overloaded() {
+        rejected.increment();
+        return new ServiceOverloadedException("Too many sign-in requests right now, please retry shortly", retryAfterSeconds);
+    }
+
+    // BCrypt hashes look like $2a$10$..., the two digits being the cost
+    private static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(6) != '$') return -1;
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.repository.PointsLedgerRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind crediting of listing rewards.
+ * <p>
+ * A listing records the reward it owes on its own coupon row (listingRewardPending),
+ * so crediting costs the listing transaction no extra statement and listers do not
+ * queue behind each other. This writer moves owed rewards into the points ledger in
+ * batches, one entry per lister per batch, every flushIntervalMs or as soon as
+ * flushThreshold listings are waiting. The owed amount is cleared in the same
+ * statement that writes the ledger entry, so a crash at any point neither loses nor
+ * repeats a credit: whatever was still owed is picked up by the first flush after
+ * restart.
+ */
+@Component
+public class PointsCreditWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PointsCreditWriter.class);
+
+    @Autowired
+    private PointsLedgerRepository pointsLedgerRepository;
+
+    @Value("${coupon.points.credit-flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${coupon.points.credit-flush-threshold:500}")
+    private long flushThreshold;
+
+    @Value("${coupon.points.credit-batch-size:1000}")
+    private int batchSize;
+
+    // Listings since the last flush on this instance; only decides when to flush early
+    private final LongAdder pending = new LongAdder();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "points-credit-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        writer.scheduleWithFixedDelay(this::flushSafely, 0, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        writer.shutdown();
+        try {
+            // Give owed rewards a last chance to land; anything left is credited on restart
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+    }
+
+    /**
+     * Notes that a listing now owes a reward.
+     */
+    public void rewardOwed() {
+        pending.increment();
+        if (pending.sum() >= flushThreshold && flushQueued.compareAndSet(false, true)) {
+            try {
+                writer.execute(() -> {
+                    flushQueued.set(false);
+                    flushSafely();
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the reward stays owed on the coupon row
+            }
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Nothing was cleared, so the next flush retries the same rewards
+            logger.error("Failed to credit listing rewards", e);
+        }
+    }
+
+    private void flush() {
+        pending.reset();
+        int credited = 0;
+        int batch;
+        do {
+            batch = pointsLedgerRepository.creditListingRewards(batchSize, Instant.now());
+            credited += batch;
+        } while (batch == batchSize);
+        if (credited > 0) {
+            logger.debug("Credited listing rewards for {} coupons", credited);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.repository.PointsLedgerRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolls points snapshots forward so balance reads only sum a short ledger tail.
+ * <p>
+ * Each run folds the entries not compacted yet into per-user snapshots, batchSize at
+ * a time, marking them compacted in the same statement. Ledger ids are handed out
+ * before commit, so an entry with a lower id can become visible after a higher one;
+ * compaction goes by what is committed rather than by id, so such an entry simply
+ * waits for the next run.
+ * <p>
+ * On startup, balances still held in the legacy userdetail.points column are carried
+ * into the ledger as OPENING_BALANCE entries before anything else runs.
+ */
+@Component
+public class PointsLedgerCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PointsLedgerCompactor.class);
+
+    @Autowired
+    private PointsLedgerRepository pointsLedgerRepository;
+
+    @Autowired
+    private RewardPointsService rewardPointsService;
+
+    @Value("${coupon.points.compact-interval-seconds:60}")
+    private long intervalSeconds;
+
+    @Value("${coupon.points.compact-batch-size:10000}")
+    private int batchSize;
+
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "points-ledger-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void startOnReady() {
+        pointsLedgerRepository.createTailIndex();
+        int migrated = rewardPointsService.migrateOpeningBalances();
+        if (migrated > 0) {
+            logger.info("Carried {} legacy point balances into the ledger", migrated);
+        }
+        compactor.scheduleWithFixedDelay(this::compactSafely, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        compactor.shutdownNow();
+    }
+
+    private void compactSafely() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            // Entries of a failed batch stay in the tail for the next run
+            logger.error("Points ledger compaction failed", e);
+        }
+    }
+
+    private void compact() {
+        int entries = 0;
+        int folded;
+        do {
+            folded = pointsLedgerRepository.compact(batchSize, Instant.now());
+            entries += folded;
+        } while (folded == batchSize);
+        if (entries > 0) {
+            logger.info("Points ledger compacted {} entries", entries);
+        }
+    }
+}
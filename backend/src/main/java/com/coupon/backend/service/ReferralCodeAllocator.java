@@ -0,0 +1,57 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.repository.UserDetailRepository;
+import com.coupon.backend.util.ReferralCodeGenerator;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hands out referral codes without probing the database for collisions.
+ * <p>
+ * Codes are {@link ReferralCodeGenerator} permutations of sequence numbers. Each
+ * instance reserves sequence numbers in blocks of BLOCK_SIZE from the
+ * referral_code_block_seq database sequence, so instances never hand out the same
+ * number and the database is only asked once per block. Numbers left in a block when
+ * an instance stops are skipped, which costs nothing in a space of 36^8.
+ * <p>
+ * Codes issued by the old random generator are not in any block and could coincide
+ * with a generated one; the unique index on the referral code column turns that into a
+ * failed insert, which signup retries with the next code.
+ */
+@Service
+public class ReferralCodeAllocator {
+
+    // Fixed: the sequence counts blocks, so changing it would make ranges overlap
+    private static final long BLOCK_SIZE = 1000;
+
+    @Autowired
+    private UserDetailRepository userDetailRepository;
+
+    @Value("${referral.code.key:coupon-collector-referral}")
+    private String key;
+
+    private ReferralCodeGenerator generator;
+    private long next;
+    private long blockEnd;
+
+    @PostConstruct
+    public void init() {
+        generator = new ReferralCodeGenerator(key);
+        userDetailRepository.createReferralCodeBlockSequence();
+    }
+
+    public String nextCode() {
+        return generator.codeFor(nextSequence());
+    }
+
+    private synchronized long nextSequence() {
+        if (next == blockEnd) {
+            long block = userDetailRepository.nextReferralCodeBlock();
+            next = block * BLOCK_SIZE;
+            blockEnd = next + BLOCK_SIZE;
+        }
+        return next++;
+    }
+}
@@ -1,34 +1,94 @@
 package com.coupon.backend.service;
 
+import com.coupon.backend.entity.PointsLedgerEntry;
 import com.coupon.backend.entity.UserDetail;
+import com.coupon.backend.enums.PointsReason;
+import com.coupon.backend.repository.PointsLedgerRepository;
 import com.coupon.backend.repository.UserDetailRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Reward points on an append-only ledger.
+ * <p>
+ * Credits are a single INSERT and never touch a shared row, so they do not contend
+ * with each other or with debits. Debits must not overdraw, so the debits of one user
+ * are serialized with a transaction-scoped advisory lock; the balance check and the
+ * INSERT then run as one statement. Balances are read from the user's snapshot plus
+ * the ledger tail, which {@link PointsLedgerCompactor} keeps short.
+ */
 @Service
 public class RewardPointsService {
 
+    private static final long OPENING_BALANCE_LOCK = 0x706f696e74734cL;
+
     @Autowired
     private UserDetailRepository userDetailRepository;
 
-    public void addPointsByEmail(String email, int pointsToAdd) {
-        UserDetail user = userDetailRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @Autowired
+    private PointsLedgerRepository pointsLedgerRepository;
 
-        int currentPoints = user.getPoints() != null ? user.getPoints() : 0;
-        user.setPoints(currentPoints + pointsToAdd);
-        userDetailRepository.save(user);
+    public void addPointsByEmail(String email, int pointsToAdd, PointsReason reason) {
+        addPoints(userIdByEmail(email), pointsToAdd, reason);
     }
 
-    public void deductPointsByEmail(String email, int pointsToDeduct) {
-        UserDetail user = userDetailRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public void addPoints(UUID userId, int pointsToAdd, PointsReason reason) {
+        if (pointsToAdd <= 0) {
+            throw new RuntimeException("Points to add must be positive");
+        }
+        pointsLedgerRepository.save(new PointsLedgerEntry(userId, pointsToAdd, reason));
+    }
 
-        int currentPoints = user.getPoints() != null ? user.getPoints() : 0;
-        if (currentPoints < pointsToDeduct) {
+    /**
+     * Debits the user and returns the remaining balance.
+     */
+    @Transactional
+    public int deductPointsByEmail(String email, int pointsToDeduct, PointsReason reason) {
+        if (pointsToDeduct <= 0) {
+            throw new RuntimeException("Points to deduct must be positive");
+        }
+        UUID userId = lockForDebit(email);
+        Integer remaining = pointsLedgerRepository.debit(userId, pointsToDeduct, reason.name(), Instant.now());
+        if (remaining == null) {
             throw new RuntimeException("Insufficient reward points");
         }
-        user.setPoints(currentPoints - pointsToDeduct);
-        userDetailRepository.save(user);
+        return remaining;
+    }
+
+    /**
+     * Resolves the user and takes their debit lock for the rest of the caller's
+     * transaction. Statements run after this see every debit that committed before.
+     */
+    @Transactional
+    public UUID lockForDebit(String email) {
+        UUID userId = userIdByEmail(email);
+        pointsLedgerRepository.lock(userId.getMostSignificantBits() ^ userId.getLeastSignificantBits());
+        return userId;
+    }
+
+    /**
+     * Carries balances still held in the legacy userdetail.points column into the
+     * ledger. Instances starting together take turns on a fixed lock, so each balance
+     * is carried once.
+     */
+    @Transactional
+    public int migrateOpeningBalances() {
+        if (!pointsLedgerRepository.hasLegacyPointsColumn()) return 0;
+        pointsLedgerRepository.lock(OPENING_BALANCE_LOCK);
+        return pointsLedgerRepository.insertOpeningBalances(Instant.now());
+    }
+
+    public int getPoints(UUID userId) {
+        return Math.toIntExact(pointsLedgerRepository.balanceOf(userId));
+    }
+
+    public UUID userIdByEmail(String email) {
+        return userDetailRepository.findByEmail(email)
+                .map(UserDetail::getId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
     }
 }
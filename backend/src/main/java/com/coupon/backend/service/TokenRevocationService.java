@@ -0,0 +1,154 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.repository.TokenEpochRow;
+import com.coupon.backend.repository.UserDetailRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user token epochs for revoking JWTs without a lookup per request.
+ * <p>
+ * Every token carries the user's epoch at issue time, and logging out bumps the epoch
+ * in the database, which revokes all tokens issued before. This service keeps in
+ * memory the epochs bumped within the last token lifetime (jwt.expiration), so
+ * checking a token is a map lookup. Older bumps are dropped: every token they revoked
+ * has expired by then, and tokens issued since carry the new epoch, so treating the
+ * user as being at 0 again lets through nothing the epoch would have stopped. Bumps
+ * made by other instances are picked up by polling for recently changed epochs every
+ * pollIntervalMs; the poll window overlaps the previous one generously so that
+ * commits landing late or clocks running apart cannot slip between polls.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(30);
+
+    @Autowired
+    private UserDetailRepository userDetailRepository;
+
+    @Value("${auth.revocation.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    @Value("${auth.revocation.prune-interval-ms:60000}")
+    private long pruneIntervalMs;
+
+    @Value("${jwt.expiration:86400000}")
+    private long tokenTtlMs;
+
+    private final Map<UUID, Revocation> epochs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "token-epoch-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Instant polledUpTo;
+
+    // Loaded before the application serves requests, so no revoked token gets through
+    @PostConstruct
+    public void load() {
+        polledUpTo = Instant.now();
+        apply(userDetailRepository.findTokenEpochsChangedSince(oldestLiveBump(polledUpTo)));
+        logger.info("Loaded token epochs for {} users", epochs.size());
+        poller.scheduleWithFixedDelay(this::pollSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::prune, pruneIntervalMs, pruneIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * True when a token issued with the given epoch has since been revoked.
+     */
+    public boolean isRevoked(UUID userId, int tokenEpoch) {
+        Revocation revocation = epochs.get(userId);
+        return revocation != null && tokenEpoch < revocation.epoch();
+    }
+
+    /**
+     * The epoch a token issued to the user now should carry. Read from the database
+     * rather than from an entity, which may come from a cache that predates the last
+     * revocation; a bump made here but not yet visible to that read still wins.
+     */
+    public int currentEpoch(UUID userId) {
+        int epoch = userDetailRepository.findTokenEpoch(userId).orElse(0);
+        Revocation revocation = epochs.get(userId);
+        return revocation != null ? Math.max(epoch, revocation.epoch()) : epoch;
+    }
+
+    /**
+     * Revokes every token issued to the user so far and returns the epoch new tokens
+     * should carry. Takes effect on this instance immediately and on others within a
+     * poll interval.
+     */
+    public int revokeAll(UUID userId) {
+        Instant now = Instant.now();
+        if (userDetailRepository.incrementTokenEpoch(userId, now) == 0) {
+            throw new RuntimeException("User not found");
+        }
+        int epoch = userDetailRepository.findTokenEpoch(userId).orElse(0);
+        epochs.merge(userId, new Revocation(epoch, now), Revocation::later);
+        return epoch;
+    }
+
+    private void pollSafely() {
+        try {
+            Instant now = Instant.now();
+            apply(userDetailRepository.findTokenEpochsChangedSince(polledUpTo.minus(POLL_OVERLAP)));
+            polledUpTo = now;
+        } catch (RuntimeException e) {
+            // The window is only advanced after a successful poll
+            logger.warn("Failed to poll token epochs", e);
+        }
+    }
+
+    private void prune() {
+        Instant oldest = oldestLiveBump(Instant.now());
+        int before = epochs.size();
+        epochs.values().removeIf(revocation -> revocation.changedAt().isBefore(oldest));
+        int pruned = before - epochs.size();
+        if (pruned > 0) {
+            logger.debug("Pruned {} token epochs older than the token lifetime", pruned);
+        }
+    }
+
+    // Bumps before this only revoked tokens that have expired by now; the overlap
+    // covers clocks running apart between instances
+    private Instant oldestLiveBump(Instant now) {
+        return now.minusMillis(tokenTtlMs).minus(POLL_OVERLAP);
+    }
+
+    private void apply(Iterable<TokenEpochRow> rows) {
+        for (TokenEpochRow row : rows) {
+            if (row.tokenEpoch() != null && row.tokenEpoch() > 0 && row.changedAt() != null) {
+                epochs.merge(row.userId(), new Revocation(row.tokenEpoch(), row.changedAt()), Revocation::later);
+            }
+        }
+    }
+
+    private record Revocation(int epoch, Instant changedAt) {
+
+        // Epochs only move forward
+        Revocation later(Revocation other) {
+            return other.epoch > epoch ? other : this;
+        }
+    }
+}
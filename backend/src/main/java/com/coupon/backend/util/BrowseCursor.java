@@ -0,0 +1,40 @@
+package com.coupon.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in the browse ordering (createdAt desc, id desc).
+ * Clients only ever see the opaque base64url form produced by {@link #encode()}.
+ */
+public record BrowseCursor(Instant createdAt, UUID id) {
+
+    public static BrowseCursor of(Instant createdAt, UUID id) {
+        return new BrowseCursor(createdAt, id);
+    }
+
+    public String encode() {
+        String raw = createdAt.getEpochSecond() + "." + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     * @return the decoded cursor, or null when no cursor was supplied
+     */
+    public static BrowseCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int colon = raw.indexOf(':');
+            int dot = raw.indexOf('.');
+            long seconds = Long.parseLong(raw.substring(0, dot));
+            int nanos = Integer.parseInt(raw.substring(dot + 1, colon));
+            return new BrowseCursor(Instant.ofEpochSecond(seconds, nanos), UUID.fromString(raw.substring(colon + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
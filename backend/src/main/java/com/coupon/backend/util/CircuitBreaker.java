@@ -0,0 +1,126 @@
+package com.coupon.backend.util;
+
+/**
+ * Count-based circuit breaker over the last windowSize calls.
+ * <p>
+ * Closed, it lets every call through and opens once at least minCalls of the window
+ * are in and failureRate of them failed. Open, it turns calls away for openMillis,
+ * then lets a single trial call through (half-open): a success closes it with a fresh
+ * window, a failure opens it again. Every {@link Permit} from {@link #tryAcquire} must
+ * be settled with exactly one of {@link #onSuccess}, {@link #onFailure} or
+ * {@link #onAbandoned}, the last for calls cancelled before they had an outcome.
+ * <p>
+ * Only the trial's permit settles the half-open state. A call let through while closed
+ * that only settles after the breaker opened is not counted at all: it says nothing
+ * about the trial, and its window is gone.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Leave to make one call. generation is the closed period it was taken in.
+     */
+    public record Permit(long generation, boolean trial) {
+    }
+
+    private final boolean[] failures;
+    private final int minCalls;
+    private final double failureRate;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private int next;
+    private int recorded;
+    private int failed;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int windowSize, int minCalls, double failureRate, long openMillis) {
+        this.failures = new boolean[windowSize];
+        this.minCalls = Math.min(minCalls, windowSize);
+        this.failureRate = failureRate;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * A permit for a call that may go ahead now, or null if it may not.
+     */
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+        }
+        return switch (state) {
+            case CLOSED -> new Permit(generation, false);
+            case OPEN -> null;
+            case HALF_OPEN -> {
+                if (trialInFlight) yield null;
+                trialInFlight = true;
+                yield new Permit(generation, true);
+            }
+        };
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (permit.trial()) {
+            trialInFlight = false;
+            reset(State.CLOSED);
+        } else if (current(permit)) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (permit.trial()) {
+            trialInFlight = false;
+            open();
+        } else if (current(permit)) {
+            record(true);
+            if (recorded >= minCalls && failed >= failureRate * recorded) {
+                open();
+            }
+        }
+    }
+
+    public synchronized void onAbandoned(Permit permit) {
+        if (permit.trial()) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    // Taken in the closed period still going on
+    private boolean current(Permit permit) {
+        return state == State.CLOSED && permit.generation() == generation;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failures.length) {
+            if (failures[next]) failed--;
+        } else {
+            recorded++;
+        }
+        failures[next] = failure;
+        if (failure) failed++;
+        next = (next + 1) % failures.length;
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void reset(State newState) {
+        state = newState;
+        generation++;
+        next = 0;
+        recorded = 0;
+        failed = 0;
+    }
+}
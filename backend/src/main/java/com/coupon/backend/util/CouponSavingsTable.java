@@ -0,0 +1,227 @@
+package com.coupon.backend.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Immutable columnar copy of coupon discount terms for ranking coupons by the saving
+ * they give on an order value.
+ * <p>
+ * Amounts are long paise. Flat and percentage discounts share one formula,
+ * {@code min(flat + order * rate, cap, order)}, with the rate kept as a Q32 fixed-point
+ * fraction so the hot loop has no type branch and no division. Offers are grouped by
+ * platform and sorted by minimum order within each group, so the eligible offers for an
+ * order value are a prefix found by binary search. Savings are computed a block at a
+ * time into a small buffer in a straight loop over primitive arrays, which the JIT can
+ * vectorize, and then fed through a primitive top-K heap.
+ */
+public final class CouponSavingsTable {
+
+    /** Order values are clamped here so order * rate cannot overflow. */
+    public static final long MAX_ORDER_PAISE = Integer.MAX_VALUE;
+
+    private static final long RATE_ONE = 1L << 32;
+    private static final int BLOCK = 1024;
+
+    /**
+     * Discount terms of one coupon. Use percentBasisPoints 0 for flat discounts and
+     * flatPaise 0 for percentage discounts; capPaise is Long.MAX_VALUE when uncapped.
+     */
+    public record Offer(UUID couponId, String platform, long minOrderPaise, long flatPaise,
+                        int percentBasisPoints, long capPaise) {
+    }
+
+    public record Saving(UUID couponId, long savingPaise) {
+    }
+
+    private static final CouponSavingsTable EMPTY = build(List.of());
+
+    private final UUID[] couponIds;
+    private final long[] minOrder;
+    private final long[] flat;
+    private final long[] rate;
+    private final long[] cap;
+    // platform -> {start, end} range in the columns
+    private final Map<String, int[]> platformRanges;
+
+    private CouponSavingsTable(int size, Map<String, int[]> platformRanges) {
+        this.couponIds = new UUID[size];
+        this.minOrder = new long[size];
+        this.flat = new long[size];
+        this.rate = new long[size];
+        this.cap = new long[size];
+        this.platformRanges = platformRanges;
+    }
+
+    public static CouponSavingsTable empty() {
+        return EMPTY;
+    }
+
+    public static CouponSavingsTable build(Collection<Offer> offers) {
+        Map<String, List<Offer>> byPlatform = new TreeMap<>();
+        for (Offer offer : offers) {
+            byPlatform.computeIfAbsent(offer.platform() != null ? offer.platform() : "", p -> new ArrayList<>()).add(offer);
+        }
+        Map<String, int[]> ranges = new LinkedHashMap<>();
+        int start = 0;
+        for (Map.Entry<String, List<Offer>> group : byPlatform.entrySet()) {
+            ranges.put(group.getKey(), new int[]{start, start + group.getValue().size()});
+            start += group.getValue().size();
+        }
+
+        CouponSavingsTable table = new CouponSavingsTable(start, ranges);
+        int i = 0;
+        for (List<Offer> group : byPlatform.values()) {
+            group.sort(Comparator.comparingLong(Offer::minOrderPaise));
+            for (Offer offer : group) {
+                table.couponIds[i] = offer.couponId();
+                table.minOrder[i] = Math.max(offer.minOrderPaise(), 0);
+                table.flat[i] = Math.max(offer.flatPaise(), 0);
+                int basisPoints = Math.min(Math.max(offer.percentBasisPoints(), 0), 10_000);
+                table.rate[i] = (basisPoints * RATE_ONE + 5_000) / 10_000;
+                table.cap[i] = offer.capPaise() >= 0 ? offer.capPaise() : Long.MAX_VALUE;
+                i++;
+            }
+        }
+        return table;
+    }
+
+    public int size() {
+        return couponIds.length;
+    }
+
+    /**
+     * Returns up to k coupons with the largest positive saving on the order value,
+     * largest first. A null platform searches every platform.
+     */
+    public List<Saving> top(long orderPaise, String platform, int k) {
+        if (k <= 0 || orderPaise <= 0) return List.of();
+        long order = Math.min(orderPaise, MAX_ORDER_PAISE);
+        TopK top = new TopK(k);
+        long[] block = new long[BLOCK];
+        if (platform != null) {
+            int[] range = platformRanges.get(platform);
+            if (range != null) {
+                collect(order, range[0], range[1], top, block);
+            }
+        } else {
+            for (int[] range : platformRanges.values()) {
+                collect(order, range[0], range[1], top, block);
+            }
+        }
+        return top.drain(couponIds);
+    }
+
+    private void collect(long order, int start, int end, TopK top, long[] block) {
+        int eligibleEnd = upperBound(minOrder, start, end, order);
+        for (int base = start; base < eligibleEnd; base += BLOCK) {
+            int len = Math.min(BLOCK, eligibleEnd - base);
+            // Branch-free scoring; kept separate from selection so it stays vectorizable
+            for (int j = 0; j < len; j++) {
+                int i = base + j;
+                long saving = flat[i] + ((order * rate[i]) >>> 32);
+                block[j] = Math.min(Math.min(saving, cap[i]), order);
+            }
+            long threshold = top.threshold();
+            for (int j = 0; j < len; j++) {
+                if (block[j] > threshold) {
+                    top.offer(block[j], base + j);
+                    threshold = top.threshold();
+                }
+            }
+        }
+    }
+
+    /** First index in [from, to) whose value is greater than key. */
+    private static int upperBound(long[] sorted, int from, int to, long key) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Min-heap of (saving, row) on primitive arrays. The root is the weakest of the
+     * current top k, so a candidate only has to beat it to get in.
+     */
+    private static final class TopK {
+        private final long[] savings;
+        private final int[] rows;
+        private int size;
+
+        TopK(int k) {
+            savings = new long[k];
+            rows = new int[k];
+        }
+
+        long threshold() {
+            return size < savings.length ? 0 : savings[0];
+        }
+
+        void offer(long saving, int row) {
+            if (size < savings.length) {
+                savings[size] = saving;
+                rows[size] = row;
+                siftUp(size++);
+            } else {
+                savings[0] = saving;
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        List<Saving> drain(UUID[] couponIds) {
+            Saving[] out = new Saving[size];
+            while (size > 0) {
+                out[size - 1] = new Saving(couponIds[rows[0]], savings[0]);
+                size--;
+                savings[0] = savings[size];
+                rows[0] = rows[size];
+                siftDown(0);
+            }
+            return List.of(out);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (savings[parent] <= savings[i]) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) break;
+                int smallest = left + 1 < size && savings[left + 1] < savings[left] ? left + 1 : left;
+                if (savings[i] <= savings[smallest]) break;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long saving = savings[a];
+            savings[a] = savings[b];
+            savings[b] = saving;
+            int row = rows[a];
+            rows[a] = rows[b];
+            rows[b] = row;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.coupon.backend.util;
+
+import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.enums.DiscountType;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic extraction of the common promo templates ("Use code X", "Flat ₹100 off
+ * on ₹499", "20% off up to ₹150", "Expires on March 1, 2026") with precompiled
+ * patterns and a small date and amount parser.
+ * <p>
+ * The confidence reflects how much of a coupon was found and how unambiguous it was:
+ * a code and a discount make up most of it, validity and order limits add a little,
+ * and competing codes or discounts, or long texts with fine print these rules do not
+ * read, take it down again.
+ */
+public class CouponTextRules {
+
+    private static final String AMOUNT = "(?:₹|rs\\.?|inr)\\s?(\\d[\\d,]*(?:\\.\\d{1,2})?)";
+
+    private static final Pattern CODE = Pattern.compile(
+            "(?i:\\b(?:promo\\s*code|coupon\\s*code|code))\\s*[:\\-]?\\s*[\"'“]?([A-Z0-9]{4,20})\\b");
+    private static final Pattern PERCENT = Pattern.compile(
+            "(?<![\\d.])(100|\\d{1,2}(?:\\.\\d{1,2})?)\\s?%\\s*(?:off|discount|cashback|instant)?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern FLAT = Pattern.compile(
+            "(?:flat\\s+" + AMOUNT + "|" + AMOUNT + "\\s*(?:/-\\s*)?(?:off|discount|cashback))",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern MIN_ORDER = Pattern.compile(
+            "(?:\\b(?:on|above|over)\\s+(?:(?:orders?|purchases?)\\s+(?:of\\s+|above\\s+|over\\s+|worth\\s+)?)?"
+                    + "|\\bmin(?:imum)?\\.?\\s*(?:order|purchase|spend|cart)(?:\\s*value)?\\s*(?:of\\s*)?[:\\-]?\\s*)"
+                    + AMOUNT, Pattern.CASE_INSENSITIVE);
+    private static final Pattern MAX_DISCOUNT = Pattern.compile(
+            "(?:\\bup\\s*to|\\bmax(?:imum)?\\.?(?:\\s*discount)?(?:\\s*of)?)\\s*[:\\-]?\\s*" + AMOUNT,
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern EXPIRY = Pattern.compile(
+            "(?:\\bexpir(?:es|y|ing)?(?:\\s+(?:on|date))?|\\bvalid\\s+(?:till|until|up\\s*to|through)"
+                    + "|\\bends?\\s+on|\\btill|\\buntil)\\s*[:\\-]?\\s*"
+                    // Stops at the end of the sentence, but reads on through the dots of
+                    // "31.03.2026" and "Mar. 1"
+                    + "((?:[^\\n.;]|\\.(?=\\s?\\d)){6,30})",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern ISO_DATE = Pattern.compile("(\\d{4})-(\\d{1,2})-(\\d{1,2})");
+    private static final Pattern NUMERIC_DATE = Pattern.compile("(\\d{1,2})[/\\-.](\\d{1,2})[/\\-.](\\d{4})");
+    private static final Pattern DAY_MONTH_YEAR = Pattern.compile(
+            "(\\d{1,2})(?:st|nd|rd|th)?\\s+([A-Za-z]{3,9})\\.?,?\\s+(\\d{4})");
+    private static final Pattern MONTH_DAY_YEAR = Pattern.compile(
+            "([A-Za-z]{3,9})\\.?\\s+(\\d{1,2})(?:st|nd|rd|th)?,?\\s+(\\d{4})");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Map<String, Integer> MONTHS = Map.ofEntries(
+            Map.entry("jan", 1), Map.entry("feb", 2), Map.entry("mar", 3), Map.entry("apr", 4),
+            Map.entry("may", 5), Map.entry("jun", 6), Map.entry("jul", 7), Map.entry("aug", 8),
+            Map.entry("sep", 9), Map.entry("oct", 10), Map.entry("nov", 11), Map.entry("dec", 12));
+
+    private static final List<String> PLATFORMS = List.of(
+            "Amazon", "Flipkart", "Swiggy", "Zomato", "GPay", "PhonePe", "Paytm", "Myntra", "Ajio", "BigBasket");
+    private static final Pattern PLATFORM = Pattern.compile(
+            "\\b(" + String.join("|", PLATFORMS) + ")\\b", Pattern.CASE_INSENSITIVE);
+
+    // Longer texts usually carry terms and conditions only the model extracts
+    private static final int LONG_TEXT = 400;
+
+    public record Extraction(CouponRequestDto coupon, double confidence) {
+        public boolean hasCodeAndDiscount() {
+            return coupon.code() != null && coupon.discountType() != null && coupon.discountValue() != null;
+        }
+    }
+
+    public static Extraction extract(String text) {
+        Set<String> codes = new LinkedHashSet<>();
+        Matcher code = CODE.matcher(text);
+        while (code.find()) codes.add(code.group(1));
+
+        Set<BigDecimal> percents = new LinkedHashSet<>();
+        Matcher percent = PERCENT.matcher(text);
+        while (percent.find()) percents.add(parseAmount(percent.group(1)));
+
+        Set<BigDecimal> flats = new LinkedHashSet<>();
+        Matcher flat = FLAT.matcher(text);
+        while (flat.find()) flats.add(parseAmount(flat.group(1) != null ? flat.group(1) : flat.group(2)));
+
+        BigDecimal minOrder = firstAmount(MIN_ORDER, text);
+        BigDecimal maxDiscount = firstAmount(MAX_DISCOUNT, text);
+        LocalDate validTill = null;
+        Matcher expiry = EXPIRY.matcher(text);
+        while (validTill == null && expiry.find()) validTill = parseDate(expiry.group(1));
+
+        DiscountType discountType = null;
+        BigDecimal discountValue = null;
+        if (!percents.isEmpty()) {
+            discountType = DiscountType.PERCENTAGE;
+            discountValue = percents.iterator().next();
+        } else if (!flats.isEmpty()) {
+            discountType = DiscountType.FLAT;
+            discountValue = flats.iterator().next();
+        }
+        // "₹100 off on ₹499" reads the order minimum as a flat amount too
+        if (discountType == DiscountType.FLAT && minOrder != null) flats.remove(minOrder);
+
+        double confidence = 0;
+        if (!codes.isEmpty()) confidence += 0.4;
+        if (discountValue != null) confidence += 0.4;
+        if (validTill != null) confidence += 0.1;
+        if (minOrder != null) confidence += 0.05;
+        if (maxDiscount != null) confidence += 0.05;
+        if (codes.size() > 1) confidence -= 0.3;
+        if (percents.size() + flats.size() > 1) confidence -= 0.3;
+        if (text.length() > LONG_TEXT) confidence -= 0.2;
+
+        String title = text.strip().lines().findFirst().orElse("").strip();
+        String description = WHITESPACE.matcher(text.strip()).replaceAll(" ");
+        CouponRequestDto coupon = new CouponRequestDto(
+                title.length() > 80 ? title.substring(0, 80) : title,
+                description.length() > 500 ? description.substring(0, 500) : description,
+                codes.isEmpty() ? null : codes.iterator().next(),
+                singlePlatform(text),
+                null,
+                discountType,
+                discountValue,
+                minOrder,
+                discountType == DiscountType.PERCENTAGE ? maxDiscount : null,
+                null,
+                validTill,
+                null, null, null, null, null, null, null, null
+        );
+        return new Extraction(coupon, Math.max(0, Math.min(1, confidence)));
+    }
+
+    /**
+     * Reads "2026-03-01", "01/03/2026" (day first), "1st March 2026" and "March 1, 2026".
+     * Returns null for anything else.
+     */
+    public static LocalDate parseDate(String value) {
+        try {
+            Matcher m = ISO_DATE.matcher(value);
+            if (m.find()) {
+                return LocalDate.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3)));
+            }
+            m = NUMERIC_DATE.matcher(value);
+            if (m.find()) {
+                return LocalDate.of(Integer.parseInt(m.group(3)), Integer.parseInt(m.group(2)), Integer.parseInt(m.group(1)));
+            }
+            m = DAY_MONTH_YEAR.matcher(value);
+            if (m.find() && month(m.group(2)) != null) {
+                return LocalDate.of(Integer.parseInt(m.group(3)), month(m.group(2)), Integer.parseInt(m.group(1)));
+            }
+            m = MONTH_DAY_YEAR.matcher(value);
+            if (m.find() && month(m.group(1)) != null) {
+                return LocalDate.of(Integer.parseInt(m.group(3)), month(m.group(1)), Integer.parseInt(m.group(2)));
+            }
+        } catch (DateTimeException e) {
+            // 31/02 and the like
+        }
+        return null;
+    }
+
+    private static Integer month(String name) {
+        return name.length() < 3 ? null : MONTHS.get(name.substring(0, 3).toLowerCase(Locale.ROOT));
+    }
+
+    private static BigDecimal firstAmount(Pattern pattern, String text) {
+        Matcher m = pattern.matcher(text);
+        return m.find() ? parseAmount(m.group(1)) : null;
+    }
+
+    private static BigDecimal parseAmount(String value) {
+        return new BigDecimal(value.replace(",", ""));
+    }
+
+    private static String singlePlatform(String text) {
+        Set<String> found = new LinkedHashSet<>();
+        Matcher m = PLATFORM.matcher(text);
+        while (m.find()) {
+            for (String platform : PLATFORMS) {
+                if (platform.equalsIgnoreCase(m.group(1))) found.add(platform);
+            }
+        }
+        return found.size() == 1 ? found.iterator().next() : null;
+    }
+}
@@ -1,60 +1,59 @@
 package com.coupon.backend.util;
 
-import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String EPOCH_CLAIM = "epoch";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiration:86400000}") // 24 hours default
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${auth.token-cache.max-entries:10000}")
+    private int maxCachedTokens;
+
+    private SecretKey signingKey;
+    private JwtVerifier verifier;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        verifier = new JwtVerifier(signingKey, maxCachedTokens);
     }
 
-    public String generateToken(String email) {
+    /**
+     * Issues a token carrying everything needed to authenticate later requests without
+     * a user lookup: the email as subject, the user id and the user's token epoch.
+     */
+    public String generateToken(UUID userId, String email, int epoch) {
         return Jwts.builder()
                 .setSubject(email)
+                .claim(USER_ID_CLAIM, userId.toString())
+                .claim(EPOCH_CLAIM, epoch)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String extractEmail(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
-    }
-
-    public Boolean validateToken(String token, String email) {
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            
-            String tokenEmail = claims.getSubject();
-            Date expiration = claims.getExpiration();
-            
-            return tokenEmail.equals(email) && expiration.after(new Date());
-        } catch (Exception e) {
-            return false;
-        }
+    /**
+     * Verifies the signature and expiry and returns the token's identity. Throws a
+     * JwtException for any token that fails either check.
+     */
+    public JwtVerifier.VerifiedToken verify(String token) {
+        return verifier.verify(token);
     }
 }
-
@@ -0,0 +1,85 @@
+package com.coupon.backend.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+
+/**
+ * Verifies JWTs with a parser built once, parsing each token a single time.
+ * <p>
+ * Tokens that verified are remembered in a bounded LRU cache keyed by the SHA-256 of
+ * the whole token, until they expire, so a client sending the same token on every
+ * request pays for the signature check and JSON parse once. The key covers the whole
+ * token, header and payload included, so a token cannot hit the cache with another
+ * token's signature. Only tokens that verified are cached; rejected ones are parsed
+ * again every time and cannot crowd out good entries.
+ * <p>
+ * A cache hit says nothing about revocation, which callers still check.
+ */
+public class JwtVerifier {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final JwtParser parser;
+    private final BoundedLruCache<TokenHash, VerifiedToken> verified;
+
+    public JwtVerifier(SecretKey signingKey, int maxCachedTokens) {
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verified = new BoundedLruCache<>(maxCachedTokens);
+    }
+
+    /**
+     * Returns the token's identity, or throws a JwtException when the signature or
+     * expiry check fails or the token lacks the user id and epoch claims.
+     */
+    public VerifiedToken verify(String token) {
+        TokenHash hash = TokenHash.of(token);
+        VerifiedToken cached = verified.get(hash);
+        if (cached != null) {
+            if (cached.expiresAtMs() > System.currentTimeMillis()) {
+                return cached;
+            }
+            // Expired since it was cached; the parse below rejects it
+            verified.remove(hash);
+        }
+        VerifiedToken result = toVerifiedToken(parser.parseClaimsJws(token).getBody());
+        verified.put(hash, result);
+        return result;
+    }
+
+    private static VerifiedToken toVerifiedToken(Claims claims) {
+        String userId = claims.get(JwtUtil.USER_ID_CLAIM, String.class);
+        Integer epoch = claims.get(JwtUtil.EPOCH_CLAIM, Integer.class);
+        // Tokens issued before ids and epochs were embedded cannot be revoked, so they
+        // are not accepted; their holders sign in again
+        if (userId == null || epoch == null || claims.getSubject() == null || claims.getExpiration() == null) {
+            throw new JwtException("Token is missing required claims");
+        }
+        return new VerifiedToken(UUID.fromString(userId), claims.getSubject(), epoch,
+                claims.getExpiration().getTime());
+    }
+
+    public record VerifiedToken(UUID userId, String email, int epoch, long expiresAtMs) {
+    }
+
+    private record TokenHash(long h0, long h1, long h2, long h3) {
+        static TokenHash of(String token) {
+            ByteBuffer digest = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+            return new TokenHash(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.coupon.backend.util;
+
+import java.util.Arrays;
+
+/**
+ * The latest size latency samples, with a percentile over them. The percentile is
+ * recomputed at most every recomputeEvery samples, so reading it on every call costs
+ * a field read, not a sort.
+ */
+public final class LatencyWindow {
+
+    private final long[] samples;
+    private final double quantile;
+    private final int recomputeEvery;
+
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private volatile long percentile = -1;
+
+    public LatencyWindow(int size, double quantile, int recomputeEvery) {
+        this.samples = new long[size];
+        this.quantile = quantile;
+        this.recomputeEvery = recomputeEvery;
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) count++;
+        if (++sinceRecompute >= recomputeEvery) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            percentile = sorted[Math.max(0, Math.min(count - 1, (int) Math.ceil(quantile * count) - 1))];
+        }
+    }
+
+    /**
+     * The percentile in nanoseconds, or -1 until recomputeEvery samples are in.
+     */
+    public long percentile() {
+        return percentile;
+    }
+}
@@ -0,0 +1,170 @@
+package com.coupon.backend.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shrinks pasted coupon text before it is sent to the model, removing what the
+ * instructions already tell the model to ignore.
+ * <p>
+ * Line by line: links lose their query string and fragment (tracking parameters, save
+ * a coupon or promo code) and long paths, emoji and other pictographs are dropped,
+ * whitespace is collapsed, and blank lines, repeated lines (ignoring case) and mail
+ * footer boilerplate go. A footer line is only dropped when nothing in it scores as
+ * part of an offer, so "Download the app and use code APP100" stays. Currency signs,
+ * %, and punctuation stay. If the result is still longer than maxChars, lines are kept
+ * by relevance (codes, amounts, dates and offer words score) until the budget is
+ * spent, in their original order.
+ */
+public final class PromptCompactor {
+
+    private static final Pattern URL = Pattern.compile("\\b(?:https?://|www\\.)([^\\s/?#]+)([^\\s?#]*)[^\\s]*",
+            Pattern.CASE_INSENSITIVE);
+    // A query parameter that carries the offer itself rather than tracking ("?coupon=SAVE20")
+    private static final Pattern OFFER_PARAM = Pattern.compile("[?&]((?:code|coupon|promo|promocode|voucher)=[^&#\\s]+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern BOILERPLATE = Pattern.compile(
+            "\\b(?:unsubscribe|manage (?:your )?preferences|view (?:it )?in (?:your )?browser|privacy policy"
+                    + "|all rights reserved|you are receiving this|download (?:the|our) app|follow us)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CODE_LIKE = Pattern.compile("\\b(?=[A-Z0-9]*[0-9])(?=[A-Z0-9]*[A-Z])[A-Z0-9]{4,20}\\b");
+    private static final Pattern AMOUNT = Pattern.compile("(?:₹|rs\\.?\\s?\\d|inr\\s?\\d|\\d\\s?%|\\$\\s?\\d)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern DATE = Pattern.compile(
+            "\\b(?:\\d{1,2}[/\\-.]\\d{1,2}[/\\-.]\\d{2,4}|\\d{4}-\\d{2}-\\d{2}"
+                    + "|(?:jan|feb|mar|apr|may|jun|jul|aug|sep|oct|nov|dec)[a-z]*\\.?\\s+\\d{1,2}"
+                    + "|\\d{1,2}(?:st|nd|rd|th)?\\s+(?:jan|feb|mar|apr|may|jun|jul|aug|sep|oct|nov|dec))",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern OFFER_WORD = Pattern.compile(
+            "\\b(?:code|coupon|promo|off|discount|cashback|flat|upto|up to|min(?:imum)?|max(?:imum)?|order|valid"
+                    + "|expir\\w*|till|until|terms|t&c|applicable|new users?|once|per user|free)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    // Longest path kept on a link; longer ones are usually tracking redirects
+    private static final int MAX_URL_PATH = 40;
+
+    public record Compacted(String text, int originalChars) {
+    }
+
+    public static Compacted compact(String text, int maxChars) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        List<String> lines = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String raw : normalized.split("\\R")) {
+            String line = WHITESPACE.matcher(stripSymbols(shortenUrls(raw))).replaceAll(" ").strip();
+            if (line.isEmpty() || isBoilerplate(line)) continue;
+            if (seen.add(line.toLowerCase(Locale.ROOT))) {
+                lines.add(line);
+            }
+        }
+        return new Compacted(joinWithin(lines, maxChars), text.length());
+    }
+
+    /**
+     * A rough token count, close to what subword tokenizers give for English text:
+     * a token per four characters of a word or number, and one per other symbol.
+     */
+    public static int estimateTokens(String text) {
+        int tokens = 0;
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                run++;
+                continue;
+            }
+            tokens += (run + 3) / 4;
+            run = 0;
+            if (!Character.isWhitespace(c) && !Character.isLowSurrogate(c)) tokens++;
+        }
+        return tokens + (run + 3) / 4;
+    }
+
+    private static boolean isBoilerplate(String line) {
+        return line.length() < 120 && BOILERPLATE.matcher(line).find() && score(line, -1) == 0;
+    }
+
+    private static String shortenUrls(String line) {
+        if (line.indexOf("://") < 0 && line.indexOf("www.") < 0) return line;
+        Matcher m = URL.matcher(line);
+        StringBuilder out = new StringBuilder();
+        while (m.find()) {
+            String host = m.group(1).toLowerCase(Locale.ROOT);
+            String path = m.group(2);
+            String link = path.length() <= MAX_URL_PATH && path.length() > 1 ? host + path : host;
+            Matcher offer = OFFER_PARAM.matcher(m.group());
+            if (offer.find()) link += "?" + offer.group(1);
+            m.appendReplacement(out, Matcher.quoteReplacement(link));
+        }
+        m.appendTail(out);
+        return out.toString();
+    }
+
+    // Replaces emoji and pictographs, and the joiners and modifiers that build them, with spaces
+    private static String stripSymbols(String line) {
+        StringBuilder out = null;
+        for (int i = 0; i < line.length(); ) {
+            int cp = line.codePointAt(i);
+            if (isSymbol(cp)) {
+                if (out == null) out = new StringBuilder(line.length()).append(line, 0, i);
+                out.append(' ');
+            } else if (out != null) {
+                out.appendCodePoint(cp);
+            }
+            i += Character.charCount(cp);
+        }
+        return out == null ? line : out.toString();
+    }
+
+    private static boolean isSymbol(int cp) {
+        int type = Character.getType(cp);
+        return type == Character.OTHER_SYMBOL || type == Character.SURROGATE || type == Character.PRIVATE_USE
+                || cp == 0x200D || (cp >= 0xFE00 && cp <= 0xFE0F) || (cp >= 0x1F3FB && cp <= 0x1F3FF);
+    }
+
+    private static String joinWithin(List<String> lines, int maxChars) {
+        int total = lines.stream().mapToInt(line -> line.length() + 1).sum();
+        if (total <= maxChars + 1) return String.join("\n", lines);
+
+        int[] scores = new int[lines.size()];
+        Integer[] order = new Integer[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            scores[i] = score(lines.get(i), i);
+            order[i] = i;
+        }
+        // Highest score first; earlier lines win ties
+        Arrays.sort(order, (a, b) -> scores[a] != scores[b] ? Integer.compare(scores[b], scores[a]) : Integer.compare(a, b));
+        boolean[] keep = new boolean[lines.size()];
+        int budget = maxChars;
+        for (int i : order) {
+            int length = lines.get(i).length() + 1;
+            if (length <= budget) {
+                keep[i] = true;
+                budget -= length;
+            }
+        }
+        List<String> kept = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (keep[i]) kept.add(lines.get(i));
+        }
+        return String.join("\n", kept);
+    }
+
+    private static int score(String line, int position) {
+        int score = position == 0 ? 2 : 0;
+        if (CODE_LIKE.matcher(line).find()) score += 4;
+        if (AMOUNT.matcher(line).find()) score += 3;
+        if (DATE.matcher(line).find()) score += 2;
+        Matcher words = OFFER_WORD.matcher(line);
+        for (int hits = 0; hits < 3 && words.find(); hits++) score++;
+        return score;
+    }
+}
@@ -1,22 +1,76 @@
 package com.coupon.backend.util;
 
-import java.util.Random;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Turns sequence numbers into 8-character referral codes that are unique by
+ * construction and look random.
+ * <p>
+ * The sequence number is put through a keyed permutation of [0, 36^8): a Feistel
+ * network over 42 bits, cycle-walked until the result falls inside the code space.
+ * A permutation never maps two inputs to the same output, so distinct sequence numbers
+ * give distinct codes and no lookup is needed to rule out a collision. Without the key,
+ * consecutive signups get unrelated-looking codes.
+ */
 public class ReferralCodeGenerator {
-    
+
     private static final String ALPHANUMERIC = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
     private static final int CODE_LENGTH = 8;
-    private static final Random RANDOM = new Random();
+
+    // 36^8 codes, walked over a 42-bit Feistel domain (about 1.6 rounds per code on average)
+    public static final long CODE_SPACE = 2_821_109_907_456L;
+    private static final int HALF_BITS = 21;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 6;
+
+    private final long[] roundKeys = new long[ROUNDS];
+
+    public ReferralCodeGenerator(String key) {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            seed = mix(seed ^ b);
+        }
+        for (int i = 0; i < ROUNDS; i++) {
+            seed = mix(seed + i);
+            roundKeys[i] = seed;
+        }
+    }
 
     /**
-     * Generates a unique 8-digit alphanumeric referral code
-     * @return a random 8-character alphanumeric code
+     * The code for a sequence number in [0, CODE_SPACE).
      */
-    public static String generateReferralCode() {
-        StringBuilder code = new StringBuilder();
-        for (int i = 0; i < CODE_LENGTH; i++) {
-            code.append(ALPHANUMERIC.charAt(RANDOM.nextInt(ALPHANUMERIC.length())));
+    public String codeFor(long sequence) {
+        if (sequence < 0 || sequence >= CODE_SPACE) {
+            throw new IllegalArgumentException("Referral code space exhausted");
         }
-        return code.toString();
+        long value = sequence;
+        do {
+            value = permute(value);
+        } while (value >= CODE_SPACE);
+
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHANUMERIC.charAt((int) (value % ALPHANUMERIC.length()));
+            value /= ALPHANUMERIC.length();
+        }
+        return new String(code);
+    }
+
+    private long permute(long value) {
+        long left = value >>> HALF_BITS;
+        long right = value & HALF_MASK;
+        for (long roundKey : roundKeys) {
+            long next = left ^ (mix(right ^ roundKey) & HALF_MASK);
+            left = right;
+            right = next;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 }
@@ -0,0 +1,45 @@
+package com.coupon.backend.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free count of units still available for one coupon.
+ * <p>
+ * {@link #tryAcquire} is a compare-and-set loop that never takes the count below zero,
+ * so concurrent buyers of a hot coupon neither block each other nor oversell: a thread
+ * that loses the race simply re-reads and retries, and once the count reaches zero
+ * every further attempt fails without a write.
+ */
+public final class StockCounter {
+
+    private final AtomicInteger available;
+
+    public StockCounter(int available) {
+        this.available = new AtomicInteger(Math.max(available, 0));
+    }
+
+    /**
+     * Takes one unit. Returns false, leaving the count unchanged, when none is left.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = available.get();
+            if (current <= 0) return false;
+            if (available.compareAndSet(current, current - 1)) return true;
+        }
+    }
+
+    /** Gives back a unit taken with {@link #tryAcquire}. */
+    public void release() {
+        available.incrementAndGet();
+    }
+
+    /** Marks the coupon sold out, e.g. once the database has refused a sale. */
+    public void drain() {
+        available.set(0);
+    }
+
+    public int available() {
+        return available.get();
+    }
+}
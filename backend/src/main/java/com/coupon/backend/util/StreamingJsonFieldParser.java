@@ -0,0 +1,133 @@
+package com.coupon.backend.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses a JSON object as it streams in, reporting each top-level field the moment its
+ * value is complete rather than after the whole reply.
+ * <p>
+ * Built on Jackson's non-blocking parser: {@link #feed} hands over whatever text has
+ * arrived and never waits for more. Anything before the opening brace (a markdown
+ * fence, a stray sentence) and after the closing one is ignored; a reply that opens
+ * with an array instead is rejected. Nested values are reported once closed, as maps
+ * and lists.
+ */
+public class StreamingJsonFieldParser {
+
+    @FunctionalInterface
+    public interface FieldListener {
+        void onField(String name, Object value);
+    }
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final FieldListener listener;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private String field;
+    private TokenBuffer nested;
+
+    public StreamingJsonFieldParser(FieldListener listener) {
+        this.listener = listener;
+        try {
+            this.parser = JSON.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Parses the next piece of the reply, reporting any fields it completes.
+     */
+    public void feed(String chunk) {
+        if (finished || chunk == null || chunk.isEmpty()) return;
+        if (!started) {
+            int open = firstOpening(chunk);
+            if (open < 0) return;
+            chunk = chunk.substring(open);
+            started = true;
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            drain();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse extracted JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ends the reply and returns every field seen, in order.
+     */
+    public Map<String, Object> finish() {
+        if (!finished) {
+            throw new RuntimeException("Failed to parse extracted JSON: " +
+                    (started ? "reply ended before the object was closed" : "no JSON object in reply"));
+        }
+        return fields;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            if (nested != null) {
+                nested.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd() && --depth == 1) {
+                    report(objectMapper.readValue(nested.asParser(), Object.class));
+                    nested = null;
+                }
+                continue;
+            }
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> {
+                    if (depth++ == 1) {
+                        nested = new TokenBuffer(parser, null);
+                        nested.copyCurrentEvent(parser);
+                    } else if (token == JsonToken.START_ARRAY) {
+                        throw new IOException("expected a JSON object");
+                    }
+                }
+                case END_OBJECT -> finished = --depth == 0;
+                case FIELD_NAME -> field = parser.currentName();
+                case VALUE_STRING -> report(parser.getText());
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> report(parser.getNumberValue());
+                case VALUE_TRUE, VALUE_FALSE -> report(token == JsonToken.VALUE_TRUE);
+                case VALUE_NULL -> report(null);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static int firstOpening(String chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            if (c == '{' || c == '[') return i;
+        }
+        return -1;
+    }
+
+    private void report(Object value) {
+        fields.put(field, value);
+        listener.onField(field, value);
+    }
+}
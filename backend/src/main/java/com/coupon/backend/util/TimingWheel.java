@@ -0,0 +1,165 @@
+package com.coupon.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hierarchical timing wheel for large numbers of deadlines.
+ * <p>
+ * The finest level has {@code wheelSize} buckets of {@code tickMs} each. Deadlines
+ * beyond its span go to a lazily created overflow level whose tick is the whole span
+ * of the level below, and so on, so inserting is O(1) however far out the deadline
+ * is. Only non-empty buckets sit in a {@link DelayQueue}, which means the consumer
+ * sleeps until the next bucket is due instead of ticking through empty slots. When an
+ * overflow bucket comes due its entries cascade into finer levels until they land in
+ * a bucket of the finest tick, and are handed out from there. Items that share a
+ * bucket come out together, which makes batching their work natural.
+ * <p>
+ * Deadlines are wall-clock epoch millis, resolved to the tick: an item may be handed
+ * out up to one tick before its deadline. {@link #add} and {@link #poll} may be called
+ * from different threads; a single consumer is expected to call {@link #poll}.
+ */
+public class TimingWheel<T> {
+
+    private final DelayQueue<Bucket<T>> queue = new DelayQueue<>();
+    private final Level<T> root;
+    private int size;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMs and wheelSize must be positive");
+        }
+        this.root = new Level<>(tickMs, wheelSize, startMs, queue);
+    }
+
+    /**
+     * Schedules the item. Returns false, without scheduling it, when the deadline falls
+     * within the current tick; the caller should handle such items right away.
+     */
+    public synchronized boolean add(T item, long deadlineMs) {
+        if (!root.add(new Entry<>(item, deadlineMs))) return false;
+        size++;
+        return true;
+    }
+
+    /**
+     * Waits up to the timeout for the next bucket to come due and returns every item
+     * whose deadline has passed, or an empty list when nothing came due.
+     */
+    public List<T> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Bucket<T> bucket = queue.poll(timeout, unit);
+        if (bucket == null) return List.of();
+        List<T> due = new ArrayList<>();
+        synchronized (this) {
+            while (bucket != null) {
+                root.advanceClock(bucket.expiration);
+                for (Entry<T> entry : bucket.drain()) {
+                    // Entries from an overflow bucket cascade into a finer level;
+                    // whatever no level accepts any more is due now.
+                    if (!root.add(entry)) {
+                        due.add(entry.item);
+                        size--;
+                    }
+                }
+                bucket = queue.poll();
+            }
+        }
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private record Entry<T>(T item, long deadlineMs) {
+    }
+
+    private static final class Level<T> {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket<T>[] buckets;
+        private final DelayQueue<Bucket<T>> queue;
+        private long currentTime;
+        private Level<T> overflow;
+
+        Level(long tickMs, int wheelSize, long startMs, DelayQueue<Bucket<T>> queue) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.queue = queue;
+            this.currentTime = startMs - (startMs % tickMs);
+            this.buckets = newBuckets(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static <T> Bucket<T>[] newBuckets(int size) {
+            return new Bucket[size];
+        }
+
+        boolean add(Entry<T> entry) {
+            long deadline = entry.deadlineMs();
+            if (deadline < currentTime + tickMs) {
+                return false;
+            }
+            if (deadline < currentTime + interval) {
+                long virtualId = deadline / tickMs;
+                Bucket<T> bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.entries.add(entry);
+                // A bucket is (re)queued only when it starts a new round
+                if (bucket.setExpiration(virtualId * tickMs)) {
+                    queue.offer(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level<>(interval, wheelSize, currentTime, queue);
+            }
+            return overflow.add(entry);
+        }
+
+        void advanceClock(long timeMs) {
+            if (timeMs >= currentTime + tickMs) {
+                currentTime = timeMs - (timeMs % tickMs);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    private static final class Bucket<T> implements Delayed {
+        private final List<Entry<T>> entries = new ArrayList<>();
+        // Read by the DelayQueue outside the wheel lock
+        private volatile long expiration = -1;
+
+        boolean setExpiration(long expirationMs) {
+            if (expiration == expirationMs) return false;
+            expiration = expirationMs;
+            return true;
+        }
+
+        List<Entry<T>> drain() {
+            List<Entry<T>> drained = new ArrayList<>(entries);
+            entries.clear();
+            expiration = -1;
+            return drained;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(expiration - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiration, ((Bucket<?>) other).expiration);
+        }
+    }
+}
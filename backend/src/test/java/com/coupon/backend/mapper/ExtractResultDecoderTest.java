@@ -0,0 +1,121 @@
+package com.coupon.backend.mapper;
+
+import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.enums.DiscountType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExtractResultDecoderTest {
+
+    private final ExtractResultDecoder decoder = new ExtractResultDecoder();
+
+    // An empty expectation means null
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "1299         | 1299",
+            "₹ 1,299.50   | 1299.50",
+            "Rs. 100      | 100",
+            "INR 2,500    | 2500",
+            "20%          | 20",
+            "12.5 %       | 12.5",
+            "-.5          | -0.5",
+            "-40          | -40",
+            "1.2.3        |",
+            "100.         |",
+            "5-           |",
+            "12abc        |",
+            "Rs.          |",
+            "''           |",
+    })
+    void parseDecimal(String text, BigDecimal expected) {
+        BigDecimal value = ExtractResultDecoder.parseDecimal(text);
+        if (expected == null) {
+            assertThat(value).isNull();
+        } else {
+            assertThat(value).isEqualByComparingTo(expected);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "2026-03-01              | 2026-03-01",
+            "2024-02-29              | 2024-02-29",
+            "2026-03-01T00:00:00Z    | 2026-03-01",
+            "2026-03-01T23:59:59+05:30 | 2026-03-01",
+            "2026-03-01 10:30        | 2026-03-01",
+            "2026-02-29              |",
+            "2026-04-31              |",
+            "2026-13-01              |",
+            "2026-00-10              |",
+            "2026-03-00              |",
+            "2026-3-1                |",
+            "01-03-2026              |",
+            "2026-03-01X             |",
+            "next Friday             |",
+    })
+    void parseIsoDate(String text, LocalDate expected) {
+        assertThat(ExtractResultDecoder.parseIsoDate(text)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "250            | 250",
+            "'\"250\"'      | 250",
+            "12.0           | 12",
+            "3000000000     |",
+            "3e9            |",
+            "-3e9           |",
+            "'\"3,000,000,000\"' |",
+            "'\"2.5\"'      |",
+    })
+    void totalQuantityThatDoesNotFitAnIntIsNull(String json, Integer expected) throws Exception {
+        assertThat(decoder.decode("{\"totalQuantity\": " + json + "}").totalQuantity()).isEqualTo(expected);
+    }
+
+    @Test
+    void decodeReadsEveryFieldWithLenientCoercions() throws Exception {
+        CouponRequestDto result = decoder.decode("""
+                {"title": " Big Sale ", "code": "SAVE20", "discountType": "percentage",
+                 "discountValue": "20%", "minOrderValue": "₹1,999", "validTill": "2026-12-31T23:59:00Z",
+                 "terms": ["New users only", "", "Once per account"], "isFree": "false",
+                 "unknown": {"nested": [1, 2]}, "price": 49.90}""");
+
+        assertThat(result.title()).isEqualTo("Big Sale");
+        assertThat(result.code()).isEqualTo("SAVE20");
+        assertThat(result.discountType()).isEqualTo(DiscountType.PERCENTAGE);
+        assertThat(result.discountValue()).isEqualByComparingTo("20");
+        assertThat(result.minOrderValue()).isEqualByComparingTo("1999");
+        assertThat(result.validTill()).isEqualTo(LocalDate.of(2026, 12, 31));
+        assertThat(result.terms()).isEqualTo("New users only\nOnce per account");
+        assertThat(result.isFree()).isFalse();
+        assertThat(result.price()).isEqualTo(new BigDecimal("49.90"));
+    }
+
+    @Test
+    void decodeArrayKeepsPositionsWhenIndexIsMissingOrUnusable() throws Exception {
+        List<ExtractResultDecoder.IndexedResult> results = decoder.decodeArray("""
+                [{"index": 2, "code": "B"}, {"code": "A"}, "not an object", {"index": "x", "code": "C"},
+                 {"index": 1e12, "code": "D"}]""");
+
+        assertThat(results).extracting(ExtractResultDecoder.IndexedResult::index).containsExactly(2, -1, -1, -1, -1);
+        assertThat(results).extracting(r -> r.result() == null ? null : r.result().code())
+                .containsExactly("B", "A", null, "C", "D");
+    }
+
+    @Test
+    void malformedJsonIsAnError() {
+        assertThatThrownBy(() -> decoder.decode("{\"code\": \"SAVE20\""))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decoder.decodeArray("{\"code\": \"SAVE20\"}"))
+                .hasMessageContaining("expected a JSON array");
+    }
+}
@@ -0,0 +1,147 @@
+package com.coupon.backend.service;
+
+import com.coupon.backend.enums.PointsReason;
+import com.coupon.backend.repository.PointsLedgerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "coupon.points.compact-interval-seconds=3600")
+class PointsLedgerTest {
+
+    private static final int BATCH = 1000;
+
+    @Autowired
+    private RewardPointsService rewardPointsService;
+
+    @Autowired
+    private PointsLedgerRepository pointsLedgerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Not @Transactional: the tests need entries committed from a second connection
+    private final List<UUID> users = new ArrayList<>();
+
+    @AfterEach
+    void deleteWhatWasWritten() {
+        for (UUID userId : users) {
+            jdbcTemplate.update("DELETE FROM points_ledger WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM points_snapshot WHERE user_id = ?", userId);
+        }
+    }
+
+    @Test
+    void balanceIsTheSameBeforeAndAfterCompaction() {
+        UUID userId = newUser();
+        rewardPointsService.addPoints(userId, 10, PointsReason.SIGNUP_BONUS);
+        rewardPointsService.addPoints(userId, 5, PointsReason.COUPON_LISTED);
+        debit(userId, 3);
+        assertThat(rewardPointsService.getPoints(userId)).isEqualTo(12);
+
+        compactAll();
+        assertThat(rewardPointsService.getPoints(userId)).isEqualTo(12);
+        assertThat(snapshotBalance(userId)).isEqualTo(12);
+        assertThat(tailSize(userId)).isZero();
+
+        rewardPointsService.addPoints(userId, 4, PointsReason.COUPON_LISTED);
+        assertThat(rewardPointsService.getPoints(userId)).isEqualTo(16);
+    }
+
+    @Test
+    void debitNeverOverdrawsAcrossCompaction() {
+        UUID userId = newUser();
+        rewardPointsService.addPoints(userId, 10, PointsReason.SIGNUP_BONUS);
+
+        assertThat(debit(userId, 4)).isEqualTo(6);
+        assertThat(debit(userId, 7)).isNull();
+        compactAll();
+        assertThat(debit(userId, 7)).isNull();
+        assertThat(debit(userId, 6)).isZero();
+        assertThat(rewardPointsService.getPoints(userId)).isZero();
+    }
+
+    @Test
+    void entryCommittedAfterCompactionPassedItsIdIsStillCounted() throws Exception {
+        UUID userId = newUser();
+        try (Connection slow = dataSource.getConnection()) {
+            slow.setAutoCommit(false);
+            long slowId = insertEntry(slow, userId, 7);
+
+            // A later entry commits first and is compacted while the slow one is open
+            rewardPointsService.addPoints(userId, 5, PointsReason.SIGNUP_BONUS);
+            compactAll();
+            assertThat(snapshotBalance(userId)).isEqualTo(5);
+            assertThat(lastEntryId(userId)).isGreaterThan(slowId);
+            assertThat(rewardPointsService.getPoints(userId)).isEqualTo(5);
+
+            slow.commit();
+        }
+
+        assertThat(rewardPointsService.getPoints(userId)).isEqualTo(12);
+        compactAll();
+        assertThat(snapshotBalance(userId)).isEqualTo(12);
+        assertThat(tailSize(userId)).isZero();
+        assertThat(rewardPointsService.getPoints(userId)).isEqualTo(12);
+    }
+
+    private UUID newUser() {
+        UUID userId = UUID.randomUUID();
+        users.add(userId);
+        return userId;
+    }
+
+    private Integer debit(UUID userId, int amount) {
+        return pointsLedgerRepository.debit(userId, amount, PointsReason.CODE_REVEALED.name(), Instant.now());
+    }
+
+    private void compactAll() {
+        while (pointsLedgerRepository.compact(BATCH, Instant.now()) == BATCH) {
+            // keep folding until a batch comes back short
+        }
+    }
+
+    private long snapshotBalance(UUID userId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT balance FROM points_snapshot WHERE user_id = ?", Long.class, userId);
+    }
+
+    private long lastEntryId(UUID userId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT last_entry_id FROM points_snapshot WHERE user_id = ?", Long.class, userId);
+    }
+
+    private int tailSize(UUID userId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM points_ledger WHERE user_id = ? AND NOT compacted", Integer.class, userId);
+    }
+
+    private static long insertEntry(Connection connection, UUID userId, int delta) throws Exception {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO points_ledger (user_id, delta, reason, created_at) VALUES (?, ?, ?, now()) RETURNING id")) {
+            insert.setObject(1, userId);
+            insert.setInt(2, delta);
+            insert.setString(3, PointsReason.SIGNUP_BONUS.name());
+            try (ResultSet rs = insert.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.coupon.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedLruCacheTest {
+
+    // Small Integers hash to themselves, so multiples of 16 all land on the first stripe
+    private static int sameStripe(int i) {
+        return i * 16;
+    }
+
+    @Test
+    void getReturnsWhatWasPutUntilRemoved() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(100);
+        cache.put("a", 1);
+        cache.put("a", 2);
+
+        assertThat(cache.get("a")).isEqualTo(2);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+
+        cache.remove("a");
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void fullStripeEvictsItsLeastRecentlyUsedEntry() {
+        // 32 entries over 16 stripes leaves room for two per stripe
+        BoundedLruCache<Integer, String> cache = new BoundedLruCache<>(32);
+        cache.put(sameStripe(1), "one");
+        cache.put(sameStripe(2), "two");
+        cache.get(sameStripe(1));
+        cache.put(sameStripe(3), "three");
+
+        assertThat(cache.get(sameStripe(1))).isEqualTo("one");
+        assertThat(cache.get(sameStripe(2))).isNull();
+        assertThat(cache.get(sameStripe(3))).isEqualTo("three");
+    }
+
+    @Test
+    void sizeStaysWithinTheBound() {
+        BoundedLruCache<Integer, Integer> cache = new BoundedLruCache<>(64);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(i, i);
+        }
+        assertThat(cache.size()).isEqualTo(64);
+    }
+
+    @Test
+    void concurrentWritersKeepTheBound() throws InterruptedException {
+        BoundedLruCache<Integer, Integer> cache = new BoundedLruCache<>(160);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t * 100_000;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    cache.put(offset + i, i);
+                    cache.get(offset + i / 2);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(cache.size()).isEqualTo(160);
+    }
+
+    @Test
+    void rejectsNonPositiveSize() {
+        assertThatThrownBy(() -> new BoundedLruCache<>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,117 @@
+package com.coupon.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_MS = 100;
+
+    // Window of 10, opens once 4 calls are in and half of them failed
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, OPEN_MS);
+
+    @Test
+    void staysClosedUntilMinCallsAreIn() {
+        fail(3);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isNotNull();
+
+        fail(1);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    void opensWhenTheFailureRateIsReached() {
+        succeed(4);
+        fail(3);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail(1);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void letsOneTrialThroughAfterOpenMillisAndClosesOnItsSuccess() throws Exception {
+        fail(4);
+        assertThat(breaker.tryAcquire()).isNull();
+
+        Thread.sleep(OPEN_MS + 50);
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        assertThat(trial).isNotNull();
+        assertThat(trial.trial()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+
+        breaker.onSuccess(trial);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        // A fresh window: the failures from before no longer count
+        fail(3);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedTrialOpensAgain() throws Exception {
+        fail(4);
+        Thread.sleep(OPEN_MS + 50);
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+
+        breaker.onFailure(trial);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    void abandonedTrialLetsTheNextCallBeTheTrial() throws Exception {
+        fail(4);
+        Thread.sleep(OPEN_MS + 50);
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+        assertThat(breaker.tryAcquire()).isNull();
+
+        breaker.onAbandoned(trial);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        CircuitBreaker.Permit next = breaker.tryAcquire();
+        assertThat(next).isNotNull();
+        assertThat(next.trial()).isTrue();
+    }
+
+    @Test
+    void lateOutcomeOfACallFromBeforeTheBreakerOpenedLeavesTheTrialAlone() throws Exception {
+        CircuitBreaker.Permit slow = breaker.tryAcquire();
+        fail(4);
+        Thread.sleep(OPEN_MS + 50);
+        CircuitBreaker.Permit trial = breaker.tryAcquire();
+
+        breaker.onFailure(slow);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+
+        breaker.onSuccess(trial);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void lateOutcomeIsNotCountedInTheNextWindow() throws Exception {
+        CircuitBreaker.Permit slow = breaker.tryAcquire();
+        fail(4);
+        Thread.sleep(OPEN_MS + 50);
+        breaker.onSuccess(breaker.tryAcquire());
+
+        fail(3);
+        breaker.onFailure(slow);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onFailure(breaker.tryAcquire());
+        }
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.onSuccess(breaker.tryAcquire());
+        }
+    }
+}
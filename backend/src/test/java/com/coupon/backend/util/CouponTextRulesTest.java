@@ -0,0 +1,89 @@
+package com.coupon.backend.util;
+
+import com.coupon.backend.dto.CouponRequestDto;
+import com.coupon.backend.enums.DiscountType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class CouponTextRulesTest {
+
+    static Stream<Arguments> templates() {
+        return Stream.of(
+                // text, code, type, value, min order, max discount, valid till
+                arguments("Use code SAVE20 to get 20% off up to ₹150",
+                        "SAVE20", DiscountType.PERCENTAGE, "20", null, "150", null),
+                arguments("Flat ₹100 off on ₹499. Use code FLAT100",
+                        "FLAT100", DiscountType.FLAT, "100", "499", null, null),
+                arguments("Zomato: 20% off up to ₹150 with code ZOM20. Expires on March 1, 2026",
+                        "ZOM20", DiscountType.PERCENTAGE, "20", null, "150", "2026-03-01"),
+                arguments("100% cashback up to Rs 50 on your first recharge. Code: FIRST100",
+                        "FIRST100", DiscountType.PERCENTAGE, "100", null, "50", null),
+                arguments("Use code PAYTM15 for 15% off. Valid till 31.03.2026",
+                        "PAYTM15", DiscountType.PERCENTAGE, "15", null, null, "2026-03-31"),
+                arguments("Promo code: MYNTRA300 - Rs. 300 off on orders above Rs 1,499. Valid until 1st April 2026",
+                        "MYNTRA300", DiscountType.FLAT, "300", "1499", null, "2026-04-01"),
+                arguments("Get ₹50 cashback with code GPAY50. Offer ends on Mar. 5, 2026",
+                        "GPAY50", DiscountType.FLAT, "50", null, null, "2026-03-05"),
+                arguments("12.5% off on orders over ₹999 with coupon code HALF125, max discount ₹200. Expiry: 2026-02-28",
+                        "HALF125", DiscountType.PERCENTAGE, "12.5", "999", "200", "2026-02-28")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("templates")
+    void readsCommonTemplates(String text, String code, DiscountType type, String value,
+                              String minOrder, String maxDiscount, String validTill) {
+        CouponTextRules.Extraction extraction = CouponTextRules.extract(text);
+        CouponRequestDto coupon = extraction.coupon();
+
+        assertThat(coupon.code()).isEqualTo(code);
+        assertThat(coupon.discountType()).isEqualTo(type);
+        assertThat(coupon.discountValue()).isEqualByComparingTo(value);
+        assertThat(coupon.minOrderValue()).isEqualTo(minOrder == null ? null : new BigDecimal(minOrder));
+        assertThat(coupon.maxDiscountValue()).isEqualTo(maxDiscount == null ? null : new BigDecimal(maxDiscount));
+        assertThat(coupon.validTill()).isEqualTo(validTill == null ? null : LocalDate.parse(validTill));
+        assertThat(extraction.hasCodeAndDiscount()).isTrue();
+        assertThat(extraction.confidence()).isGreaterThanOrEqualTo(0.8);
+    }
+
+    @Test
+    void competingCodesAndDiscountsLowerTheConfidence() {
+        CouponTextRules.Extraction extraction = CouponTextRules.extract(
+                "Use code SAVE10 for 10% off or code SAVE20 for 20% off");
+
+        assertThat(extraction.confidence()).isLessThan(0.5);
+    }
+
+    @Test
+    void textWithoutAnOfferHasNoCodeOrDiscount() {
+        CouponTextRules.Extraction extraction = CouponTextRules.extract("Your order has been delivered. Rate it now!");
+
+        assertThat(extraction.hasCodeAndDiscount()).isFalse();
+        assertThat(extraction.confidence()).isZero();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "2026-03-01        | 2026-03-01",
+            "01/03/2026        | 2026-03-01",
+            "31.03.2026        | 2026-03-31",
+            "1st March 2026    | 2026-03-01",
+            "March 1, 2026     | 2026-03-01",
+            "Sept 30 2026      | 2026-09-30",
+            "31/02/2026        | ",
+            "next Friday       | "
+    })
+    void parsesDates(String value, String expected) {
+        assertThat(CouponTextRules.parseDate(value)).isEqualTo(expected == null ? null : LocalDate.parse(expected));
+    }
+}
@@ -0,0 +1,100 @@
+package com.coupon.backend.util;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtVerifierTest {
+
+    private static final SecretKey KEY = key("test-signing-key-of-at-least-32-bytes!!");
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    private final JwtVerifier verifier = new JwtVerifier(KEY, 100);
+
+    @Test
+    void returnsTheIdentityTheTokenCarries() {
+        String token = token(KEY, 60_000, true);
+
+        JwtVerifier.VerifiedToken verified = verifier.verify(token);
+
+        assertThat(verified.userId()).isEqualTo(USER_ID);
+        assertThat(verified.email()).isEqualTo("user@example.com");
+        assertThat(verified.epoch()).isEqualTo(3);
+        assertThat(verified.expiresAtMs()).isGreaterThan(System.currentTimeMillis());
+    }
+
+    @Test
+    void repeatedTokenIsServedFromTheCache() {
+        String token = token(KEY, 60_000, true);
+
+        assertThat(verifier.verify(token)).isSameAs(verifier.verify(token));
+    }
+
+    @Test
+    void rejectsATokenSignedWithAnotherKey() {
+        String token = token(key("some-other-signing-key-of-32-bytes-or-more"), 60_000, true);
+
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rejectsAPayloadPairedWithAnotherTokensSignature() {
+        String good = token(KEY, 60_000, true);
+        verifier.verify(good);
+        String[] goodParts = good.split("\\.");
+        String[] otherParts = Jwts.builder()
+                .setSubject("attacker@example.com")
+                .claim(JwtUtil.USER_ID_CLAIM, UUID.randomUUID().toString())
+                .claim(JwtUtil.EPOCH_CLAIM, 0)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .compact()
+                .split("\\.");
+        String forged = goodParts[0] + "." + otherParts[1] + "." + goodParts[2];
+
+        assertThatThrownBy(() -> verifier.verify(forged)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rejectsATokenWithoutIdAndEpochClaims() {
+        String token = token(KEY, 60_000, false);
+
+        assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(JwtException.class)
+                .hasMessageContaining("missing required claims");
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceItExpires() throws InterruptedException {
+        // Expiry is kept in whole seconds, so this lands two to three seconds out
+        String token = token(KEY, 3_000, true);
+        long expiresAtMs = verifier.verify(token).expiresAtMs();
+
+        Thread.sleep(Math.max(0, expiresAtMs - System.currentTimeMillis()) + 50);
+
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    private static String token(SecretKey key, long ttlMs, boolean withIdAndEpoch) {
+        var builder = Jwts.builder()
+                .setSubject("user@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + ttlMs));
+        if (withIdAndEpoch) {
+            builder.claim(JwtUtil.USER_ID_CLAIM, USER_ID.toString()).claim(JwtUtil.EPOCH_CLAIM, 3);
+        }
+        return builder.signWith(key).compact();
+    }
+
+    private static SecretKey key(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,63 @@
+package com.coupon.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyWindowTest {
+
+    @Test
+    void noPercentileUntilRecomputeEverySamplesAreIn() {
+        LatencyWindow window = new LatencyWindow(100, 0.95, 10);
+        record(window, 1, 9);
+        assertThat(window.percentile()).isEqualTo(-1);
+
+        window.record(10);
+        assertThat(window.percentile()).isEqualTo(10);
+    }
+
+    @Test
+    void percentileIsTheSampleAtTheCeilingRank() {
+        // p95 of 1..100 is the 95th smallest
+        LatencyWindow p95 = new LatencyWindow(100, 0.95, 100);
+        record(p95, 1, 100);
+        assertThat(p95.percentile()).isEqualTo(95);
+
+        // p50 of 10, 20, 30, 40 is the 2nd smallest, not an interpolated 25
+        LatencyWindow p50 = new LatencyWindow(4, 0.5, 4);
+        p50.record(40);
+        p50.record(10);
+        p50.record(30);
+        p50.record(20);
+        assertThat(p50.percentile()).isEqualTo(20);
+    }
+
+    @Test
+    void extremeQuantilesAreTheSmallestAndLargestSample() {
+        LatencyWindow min = new LatencyWindow(10, 0, 10);
+        LatencyWindow max = new LatencyWindow(10, 1, 10);
+        record(min, 1, 10);
+        record(max, 1, 10);
+
+        assertThat(min.percentile()).isEqualTo(1);
+        assertThat(max.percentile()).isEqualTo(10);
+    }
+
+    @Test
+    void onlyTheLatestSamplesCountAndOnlyEveryRecomputeEvery() {
+        LatencyWindow window = new LatencyWindow(10, 0.5, 10);
+        record(window, 1, 10);
+        assertThat(window.percentile()).isEqualTo(5);
+
+        record(window, 101, 109);
+        assertThat(window.percentile()).isEqualTo(5);
+        window.record(110);
+        assertThat(window.percentile()).isEqualTo(105);
+    }
+
+    private static void record(LatencyWindow window, long from, long to) {
+        for (long nanos = from; nanos <= to; nanos++) {
+            window.record(nanos);
+        }
+    }
+}
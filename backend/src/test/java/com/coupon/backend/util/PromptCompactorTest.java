@@ -0,0 +1,82 @@
+package com.coupon.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptCompactorTest {
+
+    private static final String ZOMATO_EMAIL = """
+            🎉🎉 MEGA WEEKEND SALE 🎉🎉   View in browser
+            Hi there! Your weekend treat is here 🍕👨‍👩‍👧
+
+            Enjoy 20% off up to ₹150 on your next Zomato order with coupon code ZOMWKND20.
+            Enjoy 20% off up to ₹150 on your next Zomato order with coupon code ZOMWKND20.
+            Order now: https://www.zomato.com/offers/weekend?utm_source=email&utm_campaign=wk20&fbclid=abc123
+            Minimum order value ₹299. Expires on March 1, 2026. ✅
+            Download the app | Follow us
+            Unsubscribe | Manage preferences | Privacy policy
+            © 2026 Zomato Ltd. All rights reserved.
+            """;
+
+    @Test
+    void keepsAFooterPhraseLineThatCarriesTheOffer() {
+        String text = """
+                Swiggy offer!
+                Download the app and use code APP100 for flat Rs 100 off on Rs 299
+                Valid till 31 March 2026""";
+
+        assertThat(PromptCompactor.compact(text, 4000).text()).isEqualTo(text);
+    }
+
+    @Test
+    void keepsFollowUsLineWithADiscount() {
+        String text = """
+                Myntra End of Reason Sale
+                Follow us on Instagram and get 10% cashback with code INSTA10""";
+
+        assertThat(PromptCompactor.compact(text, 4000).text()).contains("INSTA10");
+    }
+
+    @Test
+    void dropsMailFooterAndNoise() {
+        String compacted = PromptCompactor.compact(ZOMATO_EMAIL, 4000).text();
+
+        assertThat(compacted).isEqualTo("""
+                Hi there! Your weekend treat is here
+                Enjoy 20% off up to ₹150 on your next Zomato order with coupon code ZOMWKND20.
+                Order now: www.zomato.com/offers/weekend
+                Minimum order value ₹299. Expires on March 1, 2026.""");
+    }
+
+    @Test
+    void keepsTheOfferParameterOfALink() {
+        String text = "Shop now: https://www.myntra.com/sale?utm_source=sms&coupon=MYNTRA300&utm_medium=link";
+
+        assertThat(PromptCompactor.compact(text, 4000).text())
+                .isEqualTo("Shop now: www.myntra.com/sale?coupon=MYNTRA300");
+    }
+
+    @Test
+    void overBudgetKeepsTheOfferLinesInOrder() {
+        StringBuilder text = new StringBuilder("Amazon Great Indian Festival\n");
+        for (int i = 0; i < 40; i++) {
+            text.append("Shop the latest collection of phones and laptops, line ").append(i).append('\n');
+        }
+        text.append("Use code AMZ500 for flat ₹500 off on orders above ₹2,999\n");
+        text.append("Offer valid till 15/10/2026\n");
+
+        String compacted = PromptCompactor.compact(text.toString(), 200).text();
+
+        assertThat(compacted.length()).isLessThanOrEqualTo(200);
+        assertThat(compacted).startsWith("Amazon Great Indian Festival")
+                .contains("Use code AMZ500 for flat ₹500 off on orders above ₹2,999\nOffer valid till 15/10/2026");
+    }
+
+    @Test
+    void estimatesTokensPerWordPieceAndSymbol() {
+        assertThat(PromptCompactor.estimateTokens("")).isZero();
+        assertThat(PromptCompactor.estimateTokens("code SAVE20")).isEqualTo(3);
+        assertThat(PromptCompactor.estimateTokens("20% off!")).isEqualTo(4);
+    }
+}
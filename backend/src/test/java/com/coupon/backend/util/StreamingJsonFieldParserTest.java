@@ -0,0 +1,83 @@
+package com.coupon.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class StreamingJsonFieldParserTest {
+
+    private final List<String> reported = new ArrayList<>();
+    private final StreamingJsonFieldParser parser =
+            new StreamingJsonFieldParser((name, value) -> reported.add(name + "=" + value));
+
+    @Test
+    void chunksSplitMidTokenAndMidStringParseAsAWhole() {
+        parser.feed("{\"ti");
+        parser.feed("tle\": \"50% of");
+        assertThat(reported).isEmpty();
+        parser.feed("f ₹");
+        parser.feed("500\", \"discountVal");
+        assertThat(reported).containsExactly("title=50% off ₹500");
+        parser.feed("ue\": 1");
+        parser.feed("2.5, \"isFree\": tr");
+        parser.feed("ue}");
+
+        assertThat(reported).containsExactly("title=50% off ₹500", "discountValue=12.5", "isFree=true");
+        assertThat(parser.finish()).containsExactly(
+                entry("title", "50% off ₹500"), entry("discountValue", 12.5), entry("isFree", true));
+    }
+
+    @Test
+    void codeFenceAndTextAroundTheObjectAreIgnored() {
+        parser.feed("Here you go:\n```json\n");
+        parser.feed("{\"code\": \"SAVE20\"}\n```\nAnything {else}?");
+
+        assertThat(parser.finish()).containsExactly(entry("code", "SAVE20"));
+        assertThat(reported).containsExactly("code=SAVE20");
+    }
+
+    @Test
+    void nestedValuesAreReportedOnceTheyClose() {
+        parser.feed("{\"terms\": [\"new users\", ");
+        parser.feed("{\"min\": 499}");
+        assertThat(reported).isEmpty();
+        parser.feed("], \"meta\": {\"a\": {\"b\": null}}");
+        assertThat(reported).hasSize(2);
+        parser.feed(", \"code\": null}");
+
+        Map<String, Object> fields = parser.finish();
+        assertThat(fields.get("terms")).isEqualTo(List.of("new users", Map.of("min", 499)));
+        assertThat(fields.get("meta")).isEqualTo(Map.of("a", Collections.singletonMap("b", null)));
+        assertThat(fields).containsEntry("code", null);
+        assertThat(reported).last().isEqualTo("code=null");
+    }
+
+    @Test
+    void topLevelArrayIsRejected() {
+        assertThatThrownBy(() -> parser.feed("```json\n[{\"code\": \"SAVE20\"}]"))
+                .hasMessageContaining("expected a JSON object");
+        assertThat(reported).isEmpty();
+    }
+
+    @Test
+    void finishOnATruncatedReplyFails() {
+        parser.feed("{\"title\": \"Sale\", \"code\": \"SA");
+
+        assertThat(reported).containsExactly("title=Sale");
+        assertThatThrownBy(parser::finish).hasMessageContaining("reply ended before the object was closed");
+    }
+
+    @Test
+    void finishWithoutAnyObjectFails() {
+        parser.feed("Sorry, I could not find a coupon in that text.");
+
+        assertThatThrownBy(parser::finish).hasMessageContaining("no JSON object in reply");
+    }
+}
@@ -0,0 +1,92 @@
+package com.coupon.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long TICK_MS = 20;
+
+    @Test
+    void deadlineWithinCurrentTickIsRejected() {
+        long now = System.currentTimeMillis();
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, 8, now);
+
+        assertThat(wheel.add("past", now - 1000)).isFalse();
+        assertThat(wheel.add("now", now - now % TICK_MS)).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void itemComesOutNoEarlierThanOneTickBeforeItsDeadline() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, 8, now);
+        long deadline = now + 100;
+
+        assertThat(wheel.add("a", deadline)).isTrue();
+        assertThat(wheel.size()).isEqualTo(1);
+
+        List<String> due = pollUntil(wheel, 1, 2000);
+        assertThat(due).containsExactly("a");
+        assertThat(System.currentTimeMillis()).isGreaterThanOrEqualTo(deadline - TICK_MS);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void itemsSharingABucketComeOutTogether() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, 8, now);
+        long bucketStart = (now / TICK_MS + 3) * TICK_MS;
+
+        wheel.add("a", bucketStart);
+        wheel.add("b", bucketStart + TICK_MS - 1);
+
+        assertThat(wheel.poll(2, TimeUnit.SECONDS)).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void deadlinesBeyondTheWheelCascadeAndComeOutInOrder() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        // 8 ticks of 20ms span 160ms; the later deadlines land in overflow levels
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK_MS, 8, now);
+        List<Long> deadlines = List.of(now + 60, now + 250, now + 500, now + 900);
+        for (long deadline : deadlines.reversed()) {
+            assertThat(wheel.add(deadline, deadline)).isTrue();
+        }
+
+        List<Long> seen = new ArrayList<>();
+        long end = System.currentTimeMillis() + 3000;
+        while (seen.size() < deadlines.size() && System.currentTimeMillis() < end) {
+            for (long deadline : wheel.poll(100, TimeUnit.MILLISECONDS)) {
+                assertThat(System.currentTimeMillis()).isGreaterThanOrEqualTo(deadline - TICK_MS);
+                seen.add(deadline);
+            }
+        }
+        assertThat(seen).containsExactlyElementsOf(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pollTimesOutEmptyWhenNothingIsDue() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, 8, now);
+        wheel.add("later", now + 60_000);
+
+        assertThat(wheel.poll(50, TimeUnit.MILLISECONDS)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    private static <T> List<T> pollUntil(TimingWheel<T> wheel, int count, long timeoutMs) throws InterruptedException {
+        List<T> due = new ArrayList<>();
+        long end = System.currentTimeMillis() + timeoutMs;
+        while (due.size() < count && System.currentTimeMillis() < end) {
+            due.addAll(wheel.poll(50, TimeUnit.MILLISECONDS));
+        }
+        return due;
+    }
+}
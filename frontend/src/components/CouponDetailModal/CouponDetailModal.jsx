@@ -7,9 +7,13 @@ export function CouponDetailModal({ coupon, isOpen, onClose, onShowToast }) {
   const [showCode, setShowCode] = useState(false)
   const [copied, setCopied] = useState(false)
   const [isDeductingPoints, setIsDeductingPoints] = useState(false)
+  // Code returned by view-code, kept per coupon so hiding and showing again is free
+  const [revealed, setRevealed] = useState(null)
 
   if (!isOpen || !coupon) return null
 
+  const revealedCode = revealed?.couponId === coupon.id ? revealed.code : null
+
   const handleRevealCode = async () => {
     if (showCode) {
       // User is hiding the code, just toggle
@@ -17,13 +21,24 @@ export function CouponDetailModal({ coupon, isOpen, onClose, onShowToast }) {
       return
     }
 
-    // User is revealing the code - deduct 5 points
+    if (revealedCode) {
+      setShowCode(true)
+      return
+    }
+
+    // User is revealing the code - the server deducts points and returns the code
     setIsDeductingPoints(true)
     try {
-      await couponAPI.viewCouponCode(coupon.id)
+      const response = await couponAPI.viewCouponCode(coupon.id)
+      setRevealed({ couponId: coupon.id, code: response.code })
       setShowCode(true)
       if (onShowToast) {
-        onShowToast("5 points deducted! Coupon code revealed.", "info")
+        onShowToast(
+          response.pointsDeducted > 0
+            ? `${response.pointsDeducted} points deducted! Coupon code revealed.`
+            : "Coupon code revealed.",
+          "info"
+        )
       }
     } catch (error) {
       if (onShowToast) {
@@ -38,12 +53,13 @@ export function CouponDetailModal({ coupon, isOpen, onClose, onShowToast }) {
   }
 
   const handleCopyCode = () => {
-    navigator.clipboard.writeText(coupon.code)
+    if (!revealedCode) return
+    navigator.clipboard.writeText(revealedCode)
     setCopied(true)
     setTimeout(() => setCopied(false), 2000)
   }
 
-  const displayCode = showCode ? coupon.code : "*".repeat(coupon.code?.length || 8)
+  const displayCode = showCode && revealedCode ? revealedCode : "*".repeat(8)
 
   // Helper function to format values
   const formatValue = (value) => {
@@ -154,6 +170,7 @@ export function CouponDetailModal({ coupon, isOpen, onClose, onShowToast }) {
                 <button
                   className={`btn-copy ${copied ? "copied" : ""}`}
                   onClick={handleCopyCode}
+                  disabled={!revealedCode}
                   title="Copy to clipboard"
                 >
                   <Copy size={18} />
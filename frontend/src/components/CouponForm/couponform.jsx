@@ -123,6 +123,30 @@ export function CouponForm() {
     }, 4000)
   }
 
+  // Copies extracted values into the form; works on the full result or a single streamed field
+  const applyExtracted = (prev, r) => {
+    let next = { ...prev }
+    if (r.title != null && r.title !== "") next.title = r.title
+    if (r.description != null && r.description !== "") next.description = r.description
+    if (r.code != null && r.code !== "") next.code = r.code
+    if (r.platform != null && r.platform !== "") next.platform = String(r.platform).toLowerCase()
+    if (r.category != null && r.category !== "") next.category = String(r.category).toLowerCase()
+    if (r.discountType != null && r.discountType !== "") next.discountType = String(r.discountType).toLowerCase()
+    if (r.discountValue != null) next.discountValue = r.discountValue === "" ? "" : String(r.discountValue)
+    if (r.minOrderValue != null) next.minOrderValue = r.minOrderValue === "" ? "" : String(r.minOrderValue)
+    if (r.maxDiscountValue != null) next.maxDiscountValue = r.maxDiscountValue === "" ? "" : String(r.maxDiscountValue)
+    if (r.validFrom != null && r.validFrom !== "") next.validFrom = r.validFrom
+    if (r.validTill != null && r.validTill !== "") next.validTill = r.validTill
+    if (typeof r.requiresUniqueUser === "boolean") next.requiresUniqueUser = r.requiresUniqueUser
+    if (r.usageType != null && r.usageType !== "") {
+      const u = String(r.usageType).toUpperCase().replace(/-/g, "_")
+      next.usageType = u === "SINGLE_USE" ? "single-use" : u === "MULTI_USE" || u === "UNLIMITED" ? "multi-use" : prev.usageType
+    }
+    if (r.geoRestriction != null && r.geoRestriction !== "") next.geoRestriction = r.geoRestriction
+    if (r.terms != null && r.terms !== "") next.terms = r.terms
+    return next
+  }
+
   const handleAutoFill = async () => {
     const combinedText = (extractedTexts || []).filter(Boolean).join("\n\n").trim()
     if (!combinedText) {
@@ -132,35 +156,15 @@ export function CouponForm() {
     setIsAutoFilling(true)
     setImageError("")
     try {
-      const { result } = await extractAPI.extractFromText(combinedText)
+      // Fields land in the form as the model writes them; the full result settles them
+      const { result } = await extractAPI.extractStream(combinedText, {
+        onField: (name, value) => setFormData((prev) => applyExtracted(prev, { [name]: value })),
+      })
       if (!result) {
         showToast("Could not extract coupon details. Try a clearer image.")
         return
       }
-      setFormData((prev) => {
-        let next = { ...prev }
-        const r = result
-
-        if (r.title != null && r.title !== "") next.title = r.title
-        if (r.description != null && r.description !== "") next.description = r.description
-        if (r.code != null && r.code !== "") next.code = r.code
-        if (r.platform != null && r.platform !== "") next.platform = String(r.platform).toLowerCase()
-        if (r.category != null && r.category !== "") next.category = String(r.category).toLowerCase()
-        if (r.discountType != null && r.discountType !== "") next.discountType = String(r.discountType).toLowerCase()
-        if (r.discountValue != null) next.discountValue = r.discountValue === "" ? "" : String(r.discountValue)
-        if (r.minOrderValue != null) next.minOrderValue = r.minOrderValue === "" ? "" : String(r.minOrderValue)
-        if (r.maxDiscountValue != null) next.maxDiscountValue = r.maxDiscountValue === "" ? "" : String(r.maxDiscountValue)
-        if (r.validFrom != null && r.validFrom !== "") next.validFrom = r.validFrom
-        if (r.validTill != null && r.validTill !== "") next.validTill = r.validTill
-        if (typeof r.requiresUniqueUser === "boolean") next.requiresUniqueUser = r.requiresUniqueUser
-        if (r.usageType != null && r.usageType !== "") {
-          const u = String(r.usageType).toUpperCase().replace(/-/g, "_")
-          next.usageType = u === "SINGLE_USE" ? "single-use" : u === "MULTI_USE" || u === "UNLIMITED" ? "multi-use" : prev.usageType
-        }
-        if (r.geoRestriction != null && r.geoRestriction !== "") next.geoRestriction = r.geoRestriction
-        if (r.terms != null && r.terms !== "") next.terms = r.terms
-        return next
-      })
+      setFormData((prev) => applyExtracted(prev, result))
       showToast("Form auto-filled from coupon image. Review and edit as needed.", "success")
     } catch (err) {
       showToast(err.message || "Auto-fill failed. Try again or enter details manually.", "error")
@@ -1,4 +1,5 @@
 import { createContext, useContext, useState, useEffect } from "react"
+import { authAPI } from "../services/api"
 
 const AuthContext = createContext(null)
 
@@ -25,6 +26,10 @@ export function AuthProvider({ children }) {
   }
 
   const logout = () => {
+    if (user?.token) {
+      // Fire and forget: the local session ends either way
+      authAPI.logout(user.token).catch(() => {})
+    }
     setUser(null)
     localStorage.removeItem("user")
   }
@@ -24,7 +24,8 @@ import {
 
 const platforms = ["All Platforms", "Amazon", "Swiggy", "Zomato", "PhonePe", "GPay", "Myntra", "Flipkart"]
 const categories = ["All Categories", "Food", "Shopping", "Travel", "Recharge", "Entertainment", "Subscription"]
-const discountTypes = ["All Types", "Flat Discount", "Percentage", "Cashback", "BOGO"]
+const discountTypes = ["All Types", "Flat Discount", "Percentage"]
+const discountTypeParams = { "Flat Discount": "FLAT", Percentage: "PERCENTAGE" }
 const sortOptions = ["Latest", "Expiring Soon", "Most Popular"]
 
 function formatDate(dateStr) {
@@ -54,7 +55,6 @@ function toCard(c) {
     id: c.id,
     title: c.title,
     description: c.description,
-    code: c.code,
     platform: platformDisplay,
     platformRaw: (c.platform || "").toLowerCase(),
     category: categoryDisplay,
@@ -92,6 +92,21 @@ function toCard(c) {
   }
 }
 
+/** Server-side browse filters for the current selection */
+function toBrowseParams(filters) {
+  const params = { activeOnly: true, view: "card" }
+  if (filters.platform !== "All Platforms") params.platform = filters.platform
+  if (filters.category !== "All Categories") params.category = filters.category
+  if (discountTypeParams[filters.discountType]) params.discountType = discountTypeParams[filters.discountType]
+  return params
+}
+
+/** Option label with the facet count reported by the server, e.g. "Swiggy (12)" */
+function withCount(label, counts) {
+  if (!counts) return label
+  return `${label} (${counts[label.toLowerCase()] ?? 0})`
+}
+
 const platformIcons = {
   Swiggy: Utensils,
   Amazon: ShoppingBag,
@@ -117,6 +132,10 @@ export function BrowseCoupons() {
   const [coupons, setCoupons] = useState([])
   const [fullCoupons, setFullCoupons] = useState({}) // Store full coupon data by ID
   const [loading, setLoading] = useState(true)
+  const [loadingMore, setLoadingMore] = useState(false)
+  const [nextCursor, setNextCursor] = useState(null)
+  const [facets, setFacets] = useState(null)
+  const [searchResults, setSearchResults] = useState(null) // null when no search is active
   const [error, setError] = useState(null)
   const [selectedCoupon, setSelectedCoupon] = useState(null)
   const [showModal, setShowModal] = useState(false)
@@ -135,18 +154,12 @@ export function BrowseCoupons() {
     setLoading(true)
     setError(null)
     couponAPI
-      .browseCoupons({ activeOnly: true })
+      .browseCoupons(toBrowseParams(filters))
       .then((data) => {
-        if (!cancelled && Array.isArray(data)) {
-          // Store full coupon data
-          const fullCouponsMap = {}
-          const cardCoupons = data.map((c) => {
-            fullCouponsMap[c.id] = c
-            return toCard(c)
-          })
-          setCoupons(cardCoupons)
-
-          setFullCoupons(fullCouponsMap)
+        if (!cancelled && data && Array.isArray(data.items)) {
+          setCoupons(data.items.map(toCard))
+          setNextCursor(data.hasMore ? data.nextCursor : null)
+          setFacets(data.facets)
         } else if (!cancelled && data) setCoupons([])
       })
       .catch((err) => {
@@ -156,21 +169,75 @@ export function BrowseCoupons() {
         if (!cancelled) setLoading(false)
       })
     return () => { cancelled = true }
-  }, [])
+  }, [filters.platform, filters.category, filters.discountType])
+
+  // Full-text search runs on the server index; debounce so typing doesn't fire a request per key
+  useEffect(() => {
+    const query = filters.searchQuery.trim()
+    if (!query) {
+      setSearchResults(null)
+      return
+    }
+    let cancelled = false
+    const timer = setTimeout(() => {
+      couponAPI
+        .searchCoupons(query)
+        .then((data) => {
+          if (cancelled || !data || !Array.isArray(data.items)) return
+          setFullCoupons((prev) => {
+            const next = { ...prev }
+            data.items.forEach((c) => {
+              next[c.id] = c
+            })
+            return next
+          })
+          setSearchResults(data.items.map(toCard))
+        })
+        .catch((err) => {
+          if (!cancelled) showToast(err.message || "Search failed", "error")
+        })
+    }, 250)
+    return () => {
+      cancelled = true
+      clearTimeout(timer)
+    }
+  }, [filters.searchQuery])
+
+  const loadMore = () => {
+    if (!nextCursor || loadingMore) return
+    setLoadingMore(true)
+    couponAPI
+      .browseCoupons({ ...toBrowseParams(filters), cursor: nextCursor })
+      .then((data) => {
+        if (!data || !Array.isArray(data.items)) return
+        setCoupons((prev) => [...prev, ...data.items.map(toCard)])
+        setNextCursor(data.hasMore ? data.nextCursor : null)
+      })
+      .catch((err) => showToast(err.message || "Failed to load more coupons", "error"))
+      .finally(() => setLoadingMore(false))
+  }
 
   const handleFilterChange = (key, value) => {
     setFilters((prev) => ({ ...prev, [key]: value }))
   }
 
-  const handleViewDetails = (coupon) => {
+  const handleViewDetails = async (coupon) => {
     if (!isAuthenticated) {
       showToast("Please log in to view coupon details", "warning", 3000)
       return
     }
-    // Use full coupon data if available and transform it with toCard
-    const rawCoupon = fullCoupons[coupon.id]
-    const fullCoupon = rawCoupon ? toCard(rawCoupon) : coupon
-    setSelectedCoupon(fullCoupon)
+    // Browse pages only carry card fields; load the full coupon the first time it is opened
+    let rawCoupon = fullCoupons[coupon.id]
+    if (!rawCoupon) {
+      try {
+        rawCoupon = await couponAPI.getCoupon(coupon.id)
+        setFullCoupons((prev) => ({ ...prev, [coupon.id]: rawCoupon }))
+      } catch (err) {
+        showToast(err.message || "Failed to load coupon details", "error")
+        return
+      }
+    }
+    setSelectedCoupon(toCard(rawCoupon))
     setShowModal(true)
   }
 
@@ -190,17 +257,14 @@ export function BrowseCoupons() {
     })
   }
 
-  const filteredCoupons = coupons.filter((coupon) => {
-    if (filters.platform !== "All Platforms" && coupon.platform !== filters.platform) return false
-    if (filters.category !== "All Categories" && coupon.category !== filters.category) return false
-    if (filters.discountType !== "All Types" && coupon.type !== filters.discountType) return false
+  // Browse results are already filtered by the server; search hits only need the selects applied locally
+  const filteredCoupons = (searchResults ?? coupons).filter((coupon) => {
     if (filters.verifiedOnly && !coupon.verified) return false
-    if (
-      filters.searchQuery &&
-      !coupon.title.toLowerCase().includes(filters.searchQuery.toLowerCase()) &&
-      !coupon.platformRaw.includes(filters.searchQuery.toLowerCase())
-    )
-      return false
+    if (searchResults) {
+      if (filters.platform !== "All Platforms" && coupon.platformRaw !== filters.platform.toLowerCase()) return false
+      if (filters.category !== "All Categories" && coupon.categoryRaw !== filters.category.toLowerCase()) return false
+      if (filters.discountType !== "All Types" && coupon.type !== filters.discountType) return false
+    }
     return true
   })
 
@@ -248,7 +312,7 @@ export function BrowseCoupons() {
                   <select value={filters.platform} onChange={(e) => handleFilterChange("platform", e.target.value)}>
                     {platforms.map((p) => (
                       <option key={p} value={p}>
-                        {p}
+                        {p === "All Platforms" ? p : withCount(p, facets?.platforms)}
                       </option>
                     ))}
                   </select>
@@ -259,7 +323,7 @@ export function BrowseCoupons() {
                   <select value={filters.category} onChange={(e) => handleFilterChange("category", e.target.value)}>
                     {categories.map((c) => (
                       <option key={c} value={c}>
-                        {c}
+                        {c === "All Categories" ? c : withCount(c, facets?.categories)}
                       </option>
                     ))}
                   </select>
@@ -399,6 +463,15 @@ export function BrowseCoupons() {
                 </button>
               </div>
             )}
+
+            {!loading && !error && !searchResults && nextCursor && (
+              <div className="load-more">
+                <button className="btn btn-secondary" onClick={loadMore} disabled={loadingMore}>
+                  <RefreshCw size={16} className={loadingMore ? "spin" : ""} />
+                  {loadingMore ? "Loading..." : "Load more"}
+                </button>
+              </div>
+            )}
           </div>
         </section>
 
@@ -88,15 +88,66 @@ export const authAPI = {
       body: JSON.stringify({ email, password }),
     })
   },
+
+  // Revokes the token server-side; passed explicitly since auth endpoints get no header by default
+  logout: async (token) => {
+    return apiRequest("/auth/logout", {
+      method: "POST",
+      headers: { Authorization: `Bearer ${token}` },
+    })
+  },
 }
 
 // Extract API (Gemini) - extract coupon fields from text
 export const extractAPI = {
-  extractFromText: async (prompt) => {
-    return apiRequest("/extract", {
+  // Streams the extraction over SSE, calling onField(name, value) as each field completes;
+  // resolves with { result } once the full result arrives
+  extractStream: async (prompt, { onField } = {}) => {
+    const token = getAuthToken()
+    const response = await fetch(`${API_BASE_URL}/extract/stream`, {
       method: "POST",
+      headers: {
+        "Content-Type": "application/json",
+        Accept: "text/event-stream",
+        ...(token ? { Authorization: `Bearer ${token}` } : {}),
+      },
       body: JSON.stringify({ prompt }),
     })
+    if (!response.ok || !response.body) {
+      let message = "Request failed (" + response.status + ")"
+      try {
+        message = (await response.json()).message || message
+      } catch {
+        // Not JSON; keep the status message
+      }
+      throw new Error(message)
+    }
+
+    const reader = response.body.getReader()
+    const decoder = new TextDecoder()
+    let buffer = ""
+    for (;;) {
+      const { value, done } = await reader.read()
+      if (done) break
+      buffer += decoder.decode(value, { stream: true })
+      let end
+      while ((end = buffer.indexOf("\n\n")) >= 0) {
+        const frame = buffer.slice(0, end)
+        buffer = buffer.slice(end + 2)
+        let event = "message"
+        const data = []
+        for (const line of frame.split("\n")) {
+          if (line.startsWith("event:")) event = line.slice(6).trim()
+          else if (line.startsWith("data:")) data.push(line.slice(5))
+        }
+        if (data.length === 0) continue
+        const payload = JSON.parse(data.join("\n"))
+        if (event === "field") onField?.(payload.name, payload.value)
+        else if (event === "result") return payload
+        else if (event === "error") throw new Error(payload.message || "Extraction failed")
+      }
+    }
+    throw new Error("Extraction ended without a result. Try again.")
   },
 }
 
@@ -116,6 +167,19 @@ export const couponAPI = {
     })
   },
 
+  getCoupon: async (couponId) => {
+    return apiRequest(`/coupons/${couponId}`, {
+      method: "GET",
+    })
+  },
+
+  searchCoupons: async (query, limit = 20) => {
+    const queryParams = new URLSearchParams({ q: query, limit }).toString()
+    return apiRequest(`/coupons/search?${queryParams}`, {
+      method: "GET",
+    })
+  },
+
   viewCouponCode: async (couponId) => {
     return apiRequest(`/coupons/${couponId}/view-code`, {
       method: "POST",